@@ -0,0 +1,140 @@
+package main.java.benchmark;
+
+import main.java.dao.ReservationDAOImpl;
+import main.java.entity.Schedule;
+import main.java.util.JDBCUtil;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ׼õǶʽݿ⣺JDBCUtilģdb.propertiesH2ڴ⣬״ʹʱִschema.sql
+ */
+public final class BenchmarkDatabase {
+
+    // insertSchedulesɵŰÿԤԼķ
+    public static final int MINUTES_PER_SCHEDULE = 1439;
+
+    private static boolean initialized;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * ִֻһΣȫҵIDвãδĺŶظ
+     */
+    public static synchronized void reset() throws Exception {
+        if (!initialized) {
+            runScript("schema.sql");
+            initialized = true;
+        }
+        try (Connection conn = JDBCUtil.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String table : new String[] { "doctor", "patient", "schedule", "reservation" }) {
+                stmt.executeUpdate("TRUNCATE TABLE " + table);
+            }
+        }
+        // ԤԼǽڵģպһ
+        ReservationDAOImpl.evictIndexBefore(LocalDate.now().plusYears(1));
+    }
+
+    /**
+     * countȫ죨00:00-23:59ÿһţŰ࣬ÿŰڲͬҽ
+     * 
+     * @return ŰID
+     */
+    public static String[] insertSchedules(int count) throws Exception {
+        String[] ids = new String[count];
+        List<Object[]> rows = new ArrayList<>(count);
+        Date date = Date.valueOf(LocalDate.now().plusDays(1));
+        for (int i = 0; i < count; i++) {
+            ids[i] = "S" + (i + 1);
+            rows.add(new Object[] { ids[i], String.format("%08d", i + 1), date, Time.valueOf(LocalTime.MIN),
+                    Time.valueOf(LocalTime.of(23, 59)), Schedule.MORNING, MINUTES_PER_SCHEDULE, 0,
+                    Schedule.STATUS_NORMAL });
+        }
+        executeBatch("INSERT INTO schedule (schedule_id, doctor_id, schedule_date, start_time, end_time, " +
+                "time_slot, available_slots, booked_slots, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return ids;
+    }
+
+    /**
+     * count1000ߣоΪpasswordֻ֤Ÿͬ
+     * 
+     * @return ID
+     */
+    public static String[] insertPatients(int count, String password) throws Exception {
+        if (count > 1000) {
+            throw new IllegalArgumentException("1000");
+        }
+        String[] ids = new String[count];
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids[i] = String.format("%010d", i + 1);
+            rows.add(new Object[] { ids[i], "" + i, password, identityId(i), String.format("138%08d", i) });
+        }
+        executeBatch("INSERT INTO patient (patient_id, name, password, identity_id, phone) VALUES (?, ?, ?, ?, ?)",
+                rows);
+        return ids;
+    }
+
+    // ɵnУλȷ֤ţڹ̶˳ȡn
+    private static String identityId(int n) {
+        String body = "11010519900307" + String.format("%03d", n % 1000);
+        int[] weights = { 7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2 };
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            sum += (body.charAt(i) - '0') * weights[i];
+        }
+        return body + "10X98765432".charAt(sum % 11);
+    }
+
+    /**
+     * JDBCִһSQL
+     */
+    public static void executeBatch(String sql, List<Object[]> rows) throws Exception {
+        try (Connection conn = JDBCUtil.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    pstmt.setObject(i + 1, row[i]);
+                }
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    // ֺŲִ·µSQLű--עУ
+    private static void runScript(String resource) throws Exception {
+        StringBuilder sql = new StringBuilder();
+        try (InputStream in = BenchmarkDatabase.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Ҳű" + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().startsWith("--")) {
+                    sql.append(line).append('\n');
+                }
+            }
+        }
+        try (Connection conn = JDBCUtil.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String statement : sql.toString().split(";")) {
+                if (!statement.trim().isEmpty()) {
+                    stmt.execute(statement);
+                }
+            }
+        }
+    }
+}
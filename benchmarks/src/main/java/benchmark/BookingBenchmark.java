@@ -0,0 +1,79 @@
+package main.java.benchmark;
+
+import main.java.dao.ReservationDAOImpl;
+import main.java.dao.ScheduleDAOImpl;
+import main.java.entity.Reservation;
+import main.java.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ҺˮߣύmaxBatchSize=64ÿҺһmaxBatchSize=1ĶԱ
+ * е߳ͬʱͬһŰࣨźŸ߷ȵŰࣩһŰԼתһ
+ * ThroughputÿҺSampleTimeӳٷֲp99
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmark {
+
+    private static final int SCHEDULES = 2000;
+
+    @Param({ "1", "64" })
+    public int maxBatchSize;
+
+    private ReservationService service;
+
+    private String[] scheduleIds;
+
+    private LocalDate date;
+
+    // ѷĹҺһҺŵŰ
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.reset();
+        scheduleIds = BenchmarkDatabase.insertSchedules(SCHEDULES);
+        date = LocalDate.now().plusDays(1);
+        service = new ReservationService(new ScheduleDAOImpl(), new ReservationDAOImpl(), maxBatchSize, 4);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        service.shutdown(10_000);
+        System.out.println();
+        System.out.println(service);
+    }
+
+    @Benchmark
+    public Reservation book() throws Exception {
+        long n = sequence.getAndIncrement();
+        int schedule = (int) (n / BenchmarkDatabase.MINUTES_PER_SCHEDULE);
+        if (schedule >= SCHEDULES) {
+            throw new IllegalStateException("Ű꣬SCHEDULES");
+        }
+        LocalDateTime time = date.atStartOfDay().plusMinutes(n % BenchmarkDatabase.MINUTES_PER_SCHEDULE);
+        return service.book("0000000001", scheduleIds[schedule], time);
+    }
+}
@@ -0,0 +1,80 @@
+package main.java.benchmark;
+
+import main.java.dao.DepartmentDAOImpl;
+import main.java.entity.Department;
+import main.java.entity.Doctor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ڴ沿DAOĲѯҽID鲿ţԼгҽ
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepartmentDAOBenchmark {
+
+    private static final int DEPARTMENTS = 50;
+
+    private static final int DOCTORS_PER_DEPARTMENT = 40;
+
+    private final DepartmentDAOImpl dao = new DepartmentDAOImpl();
+
+    private String[] deptNames;
+
+    private String[] doctorIds;
+
+    @Setup
+    public void setUp() {
+        List<Department> departments = new ArrayList<>();
+        deptNames = new String[DEPARTMENTS];
+        doctorIds = new String[DEPARTMENTS * DOCTORS_PER_DEPARTMENT];
+        for (int d = 0; d < DEPARTMENTS; d++) {
+            Department department = new Department();
+            department.setDeptName("" + d);
+            deptNames[d] = department.getDeptName();
+            for (int i = 0; i < DOCTORS_PER_DEPARTMENT; i++) {
+                int n = d * DOCTORS_PER_DEPARTMENT + i;
+                Doctor doctor = new Doctor("ҽ" + n, "password", department.getDeptName(), null);
+                doctor.setDoctorId(String.format("%08d", n + 1));
+                doctorIds[n] = doctor.getDoctorId();
+                department.addDoctor(doctor);
+            }
+            departments.add(department);
+        }
+        dao.replaceAll(departments);
+    }
+
+    @Benchmark
+    public Department findByDeptName() {
+        return dao.findByDeptName(deptNames[ThreadLocalRandom.current().nextInt(deptNames.length)]);
+    }
+
+    @Benchmark
+    public Department findByDoctorId() {
+        return dao.findByDoctorId(doctorIds[ThreadLocalRandom.current().nextInt(doctorIds.length)]);
+    }
+
+    @Benchmark
+    public List<Doctor> getDoctorsInDepartment() {
+        return dao.getDoctorsInDepartment(deptNames[ThreadLocalRandom.current().nextInt(deptNames.length)]);
+    }
+}
@@ -0,0 +1,128 @@
+package main.java.benchmark;
+
+import main.java.dao.DoctorDAOImpl;
+import main.java.dao.Page;
+import main.java.entity.Doctor;
+import main.java.util.JDBCUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DoctorDAOImplǶʽH2ϵĲѯ
+ * Աȣʽ + ŶȡBaseDAO SELECT * + ȡҳOFFSETҳĴ
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoctorDAOBenchmark {
+
+    private static final int DOCTORS = 5000;
+
+    private static final int PAGE_SIZE = 50;
+
+    private final DoctorDAOImpl dao = new DoctorDAOImpl();
+
+    private String[] doctorIds;
+
+    // DOCTORS - PAGE_SIZE֮α꣬һҳ
+    private String lastPageCursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.reset();
+        List<Doctor> doctors = new ArrayList<>(DOCTORS);
+        doctorIds = new String[DOCTORS];
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor doctor = new Doctor("ҽ" + i, "password", "" + (i % 50), "ר" + i);
+            doctor.setDoctorId(String.format("%08d", i + 1));
+            doctorIds[i] = doctor.getDoctorId();
+            doctors.add(doctor);
+        }
+        dao.addAll(doctors);
+        String cursor = null;
+        for (int i = 0; i < DOCTORS / PAGE_SIZE - 1; i++) {
+            cursor = dao.getPage(cursor, PAGE_SIZE).getNextCursor();
+        }
+        lastPageCursor = cursor;
+    }
+
+    @Benchmark
+    public Doctor getById() throws Exception {
+        return dao.getById(doctorIds[ThreadLocalRandom.current().nextInt(DOCTORS)]);
+    }
+
+    // ߣǰSELECT * + ȡ
+    @Benchmark
+    public Doctor getByIdSelectStarByName() throws Exception {
+        try (Connection conn = JDBCUtil.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM doctor WHERE doctor_id = ?")) {
+            pstmt.setString(1, doctorIds[ThreadLocalRandom.current().nextInt(DOCTORS)]);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Doctor doctor = new Doctor();
+                doctor.setDoctorId(rs.getString("doctor_id"));
+                doctor.setName(rs.getString("name"));
+                doctor.setPassword(rs.getString("password"));
+                doctor.setDepartment(rs.getString("department"));
+                doctor.setSpecialty(rs.getString("specialty"));
+                return doctor;
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Doctor> getAll() throws Exception {
+        return dao.getAll();
+    }
+
+    @Benchmark
+    public Page<Doctor> firstPage() throws Exception {
+        return dao.getPage(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<Doctor> lastPageKeyset() throws Exception {
+        return dao.getPage(lastPageCursor, PAGE_SIZE);
+    }
+
+    // ߣOFFSETһҳҪɨ貢ǰȫ
+    @Benchmark
+    public List<String> lastPageOffset() throws Exception {
+        try (Connection conn = JDBCUtil.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT doctor_id, name, password, department, specialty FROM doctor " +
+                                "ORDER BY doctor_id LIMIT ? OFFSET ?")) {
+            pstmt.setInt(1, PAGE_SIZE);
+            pstmt.setInt(2, DOCTORS - PAGE_SIZE);
+            List<String> ids = new ArrayList<>(PAGE_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString(1));
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package main.java.benchmark;
+
+import main.java.entity.Patient;
+import main.java.entity.Reservation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ʵ幹ֶУ飺ݿ⻹ԭÿһʱᾭЩsetter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+    private final Patient patient = new Patient();
+
+    private final Reservation reservation = new Reservation();
+
+    private final String identityId = "110105199003071239";
+
+    private final LocalDateTime reservationTime = LocalDateTime.now().plusDays(30);
+
+    @Benchmark
+    public Patient patientSetIdentityId() {
+        patient.setIdentityId(identityId);
+        return patient;
+    }
+
+    @Benchmark
+    public Reservation reservationSetReservationTime() {
+        reservation.setReservationTime(reservationTime);
+        return reservation;
+    }
+
+    @Benchmark
+    public Patient newPatient() {
+        return new Patient("", "password", identityId, "13800138000");
+    }
+
+    @Benchmark
+    public Reservation newReservation() {
+        return new Reservation("0000000001", "00000001", reservationTime);
+    }
+}
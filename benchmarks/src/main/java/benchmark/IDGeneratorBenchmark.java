@@ -0,0 +1,45 @@
+package main.java.benchmark;
+
+import main.java.util.IDGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hi/loŶIDɵ£blockSize=1൱ÿIDһݿĻ
+ * Ϊȫ̺߳ϼƵÿID߳ÿ̵߳
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IDGeneratorBenchmark {
+
+    @Param({ "1", "1000" })
+    public int blockSize;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.reset();
+        IDGenerator.setBlockSize(blockSize);
+    }
+
+    @Benchmark
+    public String nextReservationId() throws Exception {
+        return IDGenerator.nextReservationId();
+    }
+}
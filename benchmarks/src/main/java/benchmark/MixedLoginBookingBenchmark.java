@@ -0,0 +1,110 @@
+package main.java.benchmark;
+
+import main.java.dao.DoctorDAOImpl;
+import main.java.dao.PatientDAOImpl;
+import main.java.dao.ReservationDAOImpl;
+import main.java.dao.ScheduleDAOImpl;
+import main.java.entity.Reservation;
+import main.java.service.CredentialService;
+import main.java.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ¼ҺŻϸأһ̳߳¼ÿζPBKDF2ϣһ߳ͬʱҺ
+ * Աȹϣ߳Ϊ14ʱҺŵӳٷֲ۲¼߷ԹҺŵӰ죻
+ * ¼߳ڹϣ߳ĵ¼ڹϣ̳߳ŶӣռøCPU
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedLoginBookingBenchmark {
+
+    private static final int SCHEDULES = 2000;
+
+    private static final int PATIENTS = 1000;
+
+    private static final String PASSWORD = "bench-password";
+
+    @Param({ "1", "4" })
+    public int hashThreads;
+
+    private CredentialService credentialService;
+
+    private ReservationService reservationService;
+
+    private String[] patientIds;
+
+    private String[] scheduleIds;
+
+    private LocalDate date;
+
+    // ѷĵ¼Һһ¼ĻߡһҺŵŰӣ
+    private final AtomicLong loginSequence = new AtomicLong();
+    private final AtomicLong bookingSequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.reset();
+        credentialService = new CredentialService(new PatientDAOImpl(), new DoctorDAOImpl(),
+                CredentialService.DEFAULT_ITERATIONS, hashThreads, 64, CredentialService.DEFAULT_SESSION_TTL_MILLIS);
+        // л߹һϣʱֻһ
+        patientIds = BenchmarkDatabase.insertPatients(PATIENTS, credentialService.hashPassword(PASSWORD));
+        scheduleIds = BenchmarkDatabase.insertSchedules(SCHEDULES);
+        date = LocalDate.now().plusDays(1);
+        reservationService = new ReservationService(new ScheduleDAOImpl(), new ReservationDAOImpl(), 64, 4);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        reservationService.shutdown(10_000);
+        credentialService.shutdown();
+        System.out.println();
+        System.out.println(credentialService);
+        System.out.println(reservationService);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(8)
+    public CredentialService.Session login() throws Exception {
+        String patientId = patientIds[(int) (loginSequence.getAndIncrement() % PATIENTS)];
+        CredentialService.Session session = credentialService.loginPatient(patientId, PASSWORD);
+        // עỰʱ
+        credentialService.logout(session.getToken());
+        return session;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(8)
+    public Reservation book() throws Exception {
+        long n = bookingSequence.getAndIncrement();
+        int schedule = (int) (n / BenchmarkDatabase.MINUTES_PER_SCHEDULE);
+        if (schedule >= SCHEDULES) {
+            throw new IllegalStateException("Ű꣬SCHEDULES");
+        }
+        LocalDateTime time = date.atStartOfDay().plusMinutes(n % BenchmarkDatabase.MINUTES_PER_SCHEDULE);
+        return reservationService.book("0000000001", scheduleIds[schedule], time);
+    }
+}
@@ -0,0 +1,101 @@
+package main.java.benchmark;
+
+import main.java.entity.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ߳ͬһŰĺԴScheduleCASsynchronizedߵĶԱ
+ * ÿβռһԴͷţԴʱ֮߳Ƶ
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBookSlotBenchmark {
+
+    @Param({ "4", "1000" })
+    public int availableSlots;
+
+    private Schedule schedule;
+
+    private SynchronizedSlots baseline;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        schedule = new Schedule("sched-bench", "00000001", LocalDate.now().plusDays(1),
+                LocalTime.of(8, 0), LocalTime.of(12, 0), Schedule.MORNING, availableSlots, 0, Schedule.STATUS_NORMAL);
+        baseline = new SynchronizedSlots(availableSlots);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoOversell() {
+        if (schedule.getBookedSlots() != 0 || baseline.booked != 0) {
+            throw new IllegalStateException("Դһ£" + schedule.getBookedSlots() + "/" + baseline.booked);
+        }
+    }
+
+    @Benchmark
+    public boolean casBookThenCancel() {
+        return schedule.bookSlot() && schedule.cancelSlot();
+    }
+
+    @Benchmark
+    public boolean synchronizedBookThenCancel() {
+        return baseline.bookSlot() && baseline.cancelSlot();
+    }
+
+    /**
+     * ߣǰȼsynchronized֤ȷ
+     */
+    static class SynchronizedSlots {
+        private final int availableSlots;
+        private int booked;
+        private String status = Schedule.STATUS_NORMAL;
+
+        SynchronizedSlots(int availableSlots) {
+            this.availableSlots = availableSlots;
+        }
+
+        synchronized boolean bookSlot() {
+            if (booked >= availableSlots) {
+                return false;
+            }
+            booked++;
+            status = booked >= availableSlots ? Schedule.STATUS_FULL : Schedule.STATUS_NORMAL;
+            return true;
+        }
+
+        synchronized boolean cancelSlot() {
+            if (booked <= 0) {
+                return false;
+            }
+            booked--;
+            status = booked >= availableSlots ? Schedule.STATUS_FULL : Schedule.STATUS_NORMAL;
+            return true;
+        }
+
+        synchronized String getStatus() {
+            return status;
+        }
+    }
+}
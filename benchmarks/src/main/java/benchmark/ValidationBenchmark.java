@@ -0,0 +1,64 @@
+package main.java.benchmark;
+
+import main.java.util.ValidationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValidationUtilַУԭString.matchesУĶԱ
+ *  -prof gc ɿ·ÿεöPatternMatcherַУ鲻
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final String patientId = "0000012345";
+
+    private final String phone = "13800138000";
+
+    private final String identityId = "110105199003071239";
+
+    @Benchmark
+    public boolean patientIdRegex() {
+        return patientId.matches("\\d{10}");
+    }
+
+    @Benchmark
+    public boolean patientIdChars() {
+        return ValidationUtil.isDigits(patientId, 10);
+    }
+
+    @Benchmark
+    public boolean phoneRegex() {
+        return phone.matches("1[3-9]\\d{9}");
+    }
+
+    @Benchmark
+    public boolean phoneChars() {
+        return ValidationUtil.isMobilePhone(phone);
+    }
+
+    @Benchmark
+    public boolean identityIdRegex() {
+        return identityId.matches("\\d{18}");
+    }
+
+    // ַУ黹Уλ
+    @Benchmark
+    public boolean identityIdChars() {
+        return ValidationUtil.isIdentityId(identityId);
+    }
+}
@@ -0,0 +1,54 @@
+-- 基准测试建表脚本（H2，MySQL兼容模式），列与DAO中的SQL一一对应
+CREATE TABLE IF NOT EXISTS doctor (
+    doctor_id VARCHAR(8) PRIMARY KEY,
+    name VARCHAR(20) NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    department VARCHAR(30) NOT NULL,
+    specialty VARCHAR(200)
+);
+CREATE INDEX IF NOT EXISTS idx_doctor_department ON doctor (department, doctor_id);
+
+CREATE TABLE IF NOT EXISTS patient (
+    patient_id VARCHAR(10) PRIMARY KEY,
+    name VARCHAR(20) NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    identity_id VARCHAR(18) NOT NULL UNIQUE,
+    phone VARCHAR(11) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS schedule (
+    schedule_id VARCHAR(32) PRIMARY KEY,
+    doctor_id VARCHAR(8) NOT NULL,
+    schedule_date DATE NOT NULL,
+    start_time TIME NOT NULL,
+    end_time TIME NOT NULL,
+    time_slot VARCHAR(10) NOT NULL,
+    available_slots INT NOT NULL,
+    booked_slots INT NOT NULL DEFAULT 0,
+    status VARCHAR(10) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_schedule_doctor ON schedule (doctor_id, schedule_date, start_time);
+CREATE INDEX IF NOT EXISTS idx_schedule_date ON schedule (schedule_date);
+
+CREATE TABLE IF NOT EXISTS reservation (
+    reservation_id VARCHAR(12) PRIMARY KEY,
+    patient_id VARCHAR(10) NOT NULL,
+    doctor_id VARCHAR(8) NOT NULL,
+    reservation_time TIMESTAMP NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    create_time TIMESTAMP,
+    cancel_time TIMESTAMP,
+    complete_time TIMESTAMP,
+    active_time TIMESTAMP GENERATED ALWAYS AS (CASE WHEN status = '已取消' THEN NULL ELSE reservation_time END)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_doctor_active_time ON reservation (doctor_id, active_time);
+CREATE INDEX IF NOT EXISTS idx_reservation_patient ON reservation (patient_id, reservation_time);
+CREATE INDEX IF NOT EXISTS idx_reservation_doctor ON reservation (doctor_id, reservation_time);
+
+CREATE TABLE IF NOT EXISTS id_sequence (
+    seq_name VARCHAR(32) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+MERGE INTO id_sequence (seq_name, next_val) KEY (seq_name) VALUES ('patient', 1);
+MERGE INTO id_sequence (seq_name, next_val) KEY (seq_name) VALUES ('doctor', 1);
+MERGE INTO id_sequence (seq_name, next_val) KEY (seq_name) VALUES ('reservation', 1);
@@ -67,6 +67,81 @@ CREATE TABLE sys_oper_log (
     INDEX idx_oper_time (create_time) -- ʱѯ
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='ϵͳ־Ϊ׷ݣ';
 
+-- 5. IDŶαIDGeneratorŶԤռ/ҽ/ԤԼIDÿIDһУnext_valΪһδֵ
+DROP TABLE IF EXISTS id_sequence;
+CREATE TABLE id_sequence (
+    seq_name VARCHAR(32) PRIMARY KEY COMMENT 'patient/doctor/reservation',
+    next_val BIGINT NOT NULL COMMENT 'һδֵ'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='IDŶη';
+
+INSERT INTO id_sequence (seq_name, next_val) VALUES ('patient', 1), ('doctor', 1), ('reservation', 1);
+
+-- 6. ԤԼReservationDAOImpl״̬ԤԼ/ȡ/ɣ
+-- active_timeΪУȡʱΪNULLԤԼʱ䣻ΨһNULL
+-- ͬһҽͬһʱֻһδȡԤԼҺŽ̲ʱݿⶵ׷ֹظԤԼ
+DROP TABLE IF EXISTS reservation;
+CREATE TABLE reservation (
+    reservation_id VARCHAR(12) NOT NULL COMMENT 'ԤԼţIDGeneratorɣ',
+    patient_id VARCHAR(10) NOT NULL COMMENT 'ID',
+    doctor_id VARCHAR(8) NOT NULL COMMENT 'ҽID',
+    reservation_time DATETIME NOT NULL COMMENT 'ԤԼʱ䣨ȷӣ',
+    status VARCHAR(10) NOT NULL COMMENT '״̬ԤԼ/ȡ/',
+    create_time DATETIME COMMENT 'ʱ',
+    cancel_time DATETIME COMMENT 'ȡʱ',
+    complete_time DATETIME COMMENT 'ʱ',
+    active_time DATETIME GENERATED ALWAYS AS (CASE WHEN status = 'ȡ' THEN NULL ELSE reservation_time END) STORED
+        COMMENT 'δȡԤԼʱ䣨УΨһԼ',
+    PRIMARY KEY (reservation_id),
+    UNIQUE INDEX uk_doctor_active_time (doctor_id, active_time), -- ͬһҽͬһʱֻһδȡԤԼ
+    INDEX idx_patient_time (patient_id, reservation_time), -- ԤԼбҳ
+    INDEX idx_doctor_time (doctor_id, reservation_time) -- ҽĳԤԼռʱѯ
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='ԤԼ';
+
+-- 7. ߱PatientDAOImplԱ֤ż㣬洢
+-- ֤šֻΨһעڴд֮Ĳעᣨ룩ΨһԼ
+DROP TABLE IF EXISTS patient;
+CREATE TABLE patient (
+    patient_id VARCHAR(10) NOT NULL COMMENT 'IDIDGeneratorɣ',
+    name VARCHAR(20) NOT NULL COMMENT '',
+    password VARCHAR(100) NOT NULL COMMENT '루CredentialServiceɵļιϣ',
+    identity_id VARCHAR(18) NOT NULL COMMENT '֤',
+    phone VARCHAR(11) NOT NULL COMMENT 'ֻ',
+    PRIMARY KEY (patient_id),
+    UNIQUE INDEX uk_identity_id (identity_id), -- һֻ֤עһ
+    UNIQUE INDEX uk_phone (phone) -- һֻֻעһ
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='߱';
+
+-- 8. ҽDoctorDAOImpl
+-- (department, doctor_id)֧ŰҵļҳWHERE department = ? AND doctor_id > ? ORDER BY doctor_id
+DROP TABLE IF EXISTS doctor;
+CREATE TABLE doctor (
+    doctor_id VARCHAR(8) NOT NULL COMMENT 'ҽIDIDGeneratorɣ',
+    name VARCHAR(20) NOT NULL COMMENT '',
+    password VARCHAR(100) NOT NULL COMMENT '루CredentialServiceɵļιϣ',
+    department VARCHAR(30) NOT NULL COMMENT '',
+    specialty VARCHAR(200) COMMENT 'ר',
+    PRIMARY KEY (doctor_id),
+    INDEX idx_department_doctor (department, doctor_id) -- ҵļҳ
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='ҽ';
+
+-- 9. ŰScheduleDAOImpl״̬//ͣ
+-- ռáͷźԴΪUPDATEbooked_slots < available_slots ͬһжϣҪȼѯ
+DROP TABLE IF EXISTS schedule;
+CREATE TABLE schedule (
+    schedule_id VARCHAR(32) NOT NULL COMMENT 'ŰID',
+    doctor_id VARCHAR(8) NOT NULL COMMENT 'ҽID',
+    schedule_date DATE NOT NULL COMMENT 'Ű',
+    start_time TIME NOT NULL COMMENT 'ʼʱ',
+    end_time TIME NOT NULL COMMENT 'ʱ',
+    time_slot VARCHAR(10) NOT NULL COMMENT 'ʱΣ//',
+    available_slots INT NOT NULL COMMENT 'ԤԼ',
+    booked_slots INT NOT NULL DEFAULT 0 COMMENT 'ԤԼ',
+    status VARCHAR(10) NOT NULL COMMENT '״̬//ͣ',
+    PRIMARY KEY (schedule_id),
+    INDEX idx_doctor_date_time (doctor_id, schedule_date, start_time), -- ҽŰбҳ
+    INDEX idx_schedule_date (schedule_date) -- ؿԾڴ
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Ű';
+
 -- ########################### ΪRDS˵ ###########################
 -- 1. ִзʽ¼ΪRDS̨  ݿ  SQL༭  ִиýűͨJDBC/NavicatӺִ
 -- 2. ȨҪʹûΪRDSĸȨ˺ţrootִУȷн//Ȩ
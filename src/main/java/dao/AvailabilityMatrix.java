@@ -0,0 +1,311 @@
+package main.java.dao;
+
+import main.java.entity.Schedule;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ԴԾint鱣 [ҽ][][ʱ] ʣԴScheduleDAOImplʹã
+ * ڴstartDatedays죬ʱΰ硢硢УͬһжŰʱǵʣԴ֮
+ * ռáͷźԴֻ޸һԪأΪO(1)Щҽкšѯֻ飬ݿ
+ * ֻҺʱݿеUPDATEΪ׼
+ */
+class AvailabilityMatrix {
+
+    // ʱھе˳
+    static final String[] TIME_SLOTS = { Schedule.MORNING, Schedule.AFTERNOON, Schedule.EVENING };
+
+    private static final int INITIAL_DOCTOR_CAPACITY = 64;
+
+    private final LocalDate startDate;
+
+    private final int days;
+
+    // ÿҽռõԪdays * ʱ
+    private final int stride;
+
+    // ʣԴ±Ϊ ҽк * stride + ƫ * ʱ + ʱ
+    private volatile AtomicIntegerArray remaining;
+
+    // ҽID -> к
+    private final Map<String, Integer> rows = new ConcurrentHashMap<>();
+
+    // ŰID -> ڵĸĺԴ
+    private final Map<String, Cell> cells = new ConcurrentHashMap<>();
+
+    // ޸Ԫʱֶʱд֤ݸڼ޸Ĳᶪʧ
+    private final ReentrantReadWriteLock resizeLock = new ReentrantReadWriteLock();
+
+    /**
+     * @param startDate ʼ
+     * @param days      
+     */
+    AvailabilityMatrix(LocalDate startDate, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("0");
+        }
+        this.startDate = startDate;
+        this.days = days;
+        this.stride = days * TIME_SLOTS.length;
+        this.remaining = new AtomicIntegerArray(INITIAL_DOCTOR_CAPACITY * stride);
+    }
+
+    LocalDate getStartDate() {
+        return startDate;
+    }
+
+    int getDays() {
+        return days;
+    }
+
+    /**
+     * ŰࣻԤԼþеֵŰ²޸ԤԼ״μʱȡŰеֵ
+     * ڲڴڻʱ޷ʶŰ಻
+     */
+    void put(Schedule schedule) {
+        String scheduleId = schedule.getScheduleId();
+        int offset = offsetOf(schedule.getDoctorId(), schedule.getScheduleDate(), schedule.getTimeSlot());
+        if (offset < 0) {
+            remove(scheduleId);
+            return;
+        }
+        Cell cell = cells.get(scheduleId);
+        int booked = schedule.getBookedSlots();
+        if (cell != null && cell.offset != offset) {
+            // ҽڻʱη仯ԭĸƳ
+            booked = cell.booked;
+            remove(scheduleId);
+            cell = null;
+        }
+        if (cell == null) {
+            cell = cells.computeIfAbsent(scheduleId, id -> new Cell(offset));
+        }
+        synchronized (cell) {
+            if (cell.removed) {
+                return;
+            }
+            int before = cell.contribution();
+            if (!cell.initialized) {
+                cell.booked = booked;
+                cell.initialized = true;
+            }
+            cell.available = schedule.getAvailableSlots();
+            cell.cancelled = Schedule.STATUS_CANCELLED.equals(schedule.getStatus());
+            add(cell.offset, cell.contribution() - before);
+        }
+    }
+
+    /**
+     * ԤԼ仯deltaռΪͷΪŰ಻ھʱ
+     */
+    void adjustBooked(String scheduleId, int delta) {
+        Cell cell = cells.get(scheduleId);
+        if (cell == null) {
+            return;
+        }
+        synchronized (cell) {
+            if (cell.removed) {
+                return;
+            }
+            int before = cell.contribution();
+            cell.booked = Math.max(cell.booked + delta, 0);
+            add(cell.offset, cell.contribution() - before);
+        }
+    }
+
+    /**
+     * ƳŰĺԴ
+     */
+    void remove(String scheduleId) {
+        Cell cell = scheduleId == null ? null : cells.remove(scheduleId);
+        if (cell == null) {
+            return;
+        }
+        synchronized (cell) {
+            cell.removed = true;
+            add(cell.offset, -cell.contribution());
+        }
+    }
+
+    /**
+     * ҽĳĳʱεʣԴڴڷ0
+     */
+    int getRemaining(String doctorId, LocalDate date, String timeSlot) {
+        Integer row = rows.get(doctorId);
+        int day = dayOf(date);
+        int slot = slotOf(timeSlot);
+        if (row == null || day < 0 || slot < 0) {
+            return 0;
+        }
+        return remaining.get(row * stride + day * TIME_SLOTS.length + slot);
+    }
+
+    /**
+     * ҽfromcountÿʱεʣԴ  * ʱ + ʱ УԪΪ0
+     */
+    int[] getRemaining(String doctorId, LocalDate from, int count) {
+        int[] result = new int[Math.max(count, 0) * TIME_SLOTS.length];
+        Integer row = rows.get(doctorId);
+        if (row == null) {
+            return result;
+        }
+        AtomicIntegerArray array = remaining;
+        int first = (int) ChronoUnit.DAYS.between(startDate, from);
+        for (int i = 0; i < count; i++) {
+            int day = first + i;
+            if (day < 0 || day >= days) {
+                continue;
+            }
+            int base = row * stride + day * TIME_SLOTS.length;
+            for (int slot = 0; slot < TIME_SLOTS.length; slot++) {
+                result[i * TIME_SLOTS.length + slot] = array.get(base + slot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ɸѡ[from, to]ڣ봰ȡһʣԴҽִ˳
+     */
+    List<String> findDoctorsWithFreeSlots(Collection<String> doctorIds, LocalDate from, LocalDate to) {
+        int first = Math.max(dayOf(from, false), 0);
+        int last = Math.min(dayOf(to, false), days - 1);
+        List<String> result = new ArrayList<>();
+        if (first > last) {
+            return result;
+        }
+        AtomicIntegerArray array = remaining;
+        for (String doctorId : doctorIds) {
+            Integer row = rows.get(doctorId);
+            if (row == null) {
+                continue;
+            }
+            int end = row * stride + (last + 1) * TIME_SLOTS.length;
+            for (int i = row * stride + first * TIME_SLOTS.length; i < end; i++) {
+                if (array.get(i) > 0) {
+                    result.add(doctorId);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    int scheduleCount() {
+        return cells.size();
+    }
+
+    // ŰڵԪ±꣬ҪʱΪҽкţڴڷ-1
+    private int offsetOf(String doctorId, LocalDate date, String timeSlot) {
+        int day = dayOf(date);
+        int slot = slotOf(timeSlot);
+        if (doctorId == null || day < 0 || slot < 0) {
+            return -1;
+        }
+        return rowOf(doctorId) * stride + day * TIME_SLOTS.length + slot;
+    }
+
+    private int rowOf(String doctorId) {
+        Integer row = rows.get(doctorId);
+        if (row != null) {
+            return row;
+        }
+        synchronized (rows) {
+            row = rows.get(doctorId);
+            if (row == null) {
+                row = rows.size();
+                ensureCapacity(row + 1);
+                rows.put(doctorId, row);
+            }
+            return row;
+        }
+    }
+
+    // ʱ
+    private void ensureCapacity(int rowCount) {
+        if ((long) rowCount * stride <= remaining.length()) {
+            return;
+        }
+        resizeLock.writeLock().lock();
+        try {
+            AtomicIntegerArray old = remaining;
+            long length = Math.max((long) old.length() * 2, (long) rowCount * stride);
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Ծ󳬳" + rowCount + "ҽ");
+            }
+            AtomicIntegerArray grown = new AtomicIntegerArray((int) length);
+            for (int i = 0; i < old.length(); i++) {
+                grown.set(i, old.get(i));
+            }
+            remaining = grown;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    private void add(int offset, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        resizeLock.readLock().lock();
+        try {
+            remaining.addAndGet(offset, delta);
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+    }
+
+    private int dayOf(LocalDate date) {
+        return dayOf(date, true);
+    }
+
+    // ڴеƫƣstrictΪtrueʱⷵ-1
+    private int dayOf(LocalDate date, boolean strict) {
+        if (date == null) {
+            return -1;
+        }
+        long day = ChronoUnit.DAYS.between(startDate, date);
+        if (strict && (day < 0 || day >= days)) {
+            return -1;
+        }
+        return (int) Math.max(Math.min(day, Integer.MAX_VALUE), Integer.MIN_VALUE);
+    }
+
+    private static int slotOf(String timeSlot) {
+        for (int i = 0; i < TIME_SLOTS.length; i++) {
+            if (TIME_SLOTS[i].equals(timeSlot)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * һŰھеļ¼ֶcellͬ޸
+     */
+    private static class Cell {
+        private final int offset;
+        private int available;
+        private int booked;
+        private boolean cancelled;
+        private boolean initialized;
+        private boolean removed;
+
+        Cell(int offset) {
+            this.offset = offset;
+        }
+
+        // ʣԴͣΪ0
+        int contribution() {
+            return cancelled || !initialized ? 0 : Math.max(available - booked, 0);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package main.java.dao;
+
+import main.java.util.JDBCUtil;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * DAOࣺͳһ - Ԥ - 󶨲 - ӳ - 黹ӡ
+ * SQLΪʽгѯУDruidӻPreparedStatementpoolPreparedStatements
+ * ͬһظִͬSQLʱֱӸԤ䣬ʡȥ½
+ * ѯͨJDBCUtil.getReadConnectionȡӣ˴ӿʱߴӿ⣩дⲢǱ̷߳д
+ */
+public abstract class BaseDAO {
+
+    /**
+     * ѯ
+     * 
+     * @param sql    SQL
+     * @param mapper ӳ
+     * @param params ˳󶨣
+     * @return һжӦĶ޽򷵻null
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> T queryForObject(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return queryForObject(JDBCUtil.getReadConnection(), sql, mapper, params);
+    }
+
+    /**
+     * ѯڹԪʱʹùԪӣSELECT ... FOR UPDATEУ
+     * 
+     * @param sql    SQL
+     * @param mapper ӳ
+     * @param params ˳󶨣
+     * @return һжӦĶ޽򷵻null
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> T queryForObjectFromPrimary(String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        return queryForObject(JDBCUtil.getConnection(), sql, mapper, params);
+    }
+
+    private <T> T queryForObject(Connection connection, String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        try (Connection conn = connection;
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapper.mapRow(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * ѯб
+     * 
+     * @param sql    SQL
+     * @param mapper ӳ
+     * @param params ˳󶨣
+     * @return б
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> List<T> queryForList(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return queryForList(JDBCUtil.getReadConnection(), sql, mapper, params);
+    }
+
+    /**
+     * ѯбӸӳӰ죬Ҫݵĳ繹ڴ
+     * 
+     * @param sql    SQL
+     * @param mapper ӳ
+     * @param params ˳󶨣
+     * @return б
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> List<T> queryForListFromPrimary(String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        return queryForList(JDBCUtil.getConnection(), sql, mapper, params);
+    }
+
+    /**
+     * ỰѯбỰдڣڹ߳ûд룩ʱ⣬ͬqueryForList
+     * 
+     * @param sessionKey Ựʶ综ID
+     * @param sql        SQL
+     * @param mapper     ӳ
+     * @param params     ˳󶨣
+     * @return б
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> List<T> queryForListInSession(String sessionKey, String sql, RowMapper<T> mapper,
+            Object... params) throws SQLException {
+        return queryForList(JDBCUtil.getReadConnection(sessionKey), sql, mapper, params);
+    }
+
+    private <T> List<T> queryForList(Connection connection, String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        List<T> list = new ArrayList<>();
+
+        try (Connection conn = connection;
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapper.mapRow(rs));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * ʽѯڷα갴fetchSizeȡڴռС޹
+     * ÷رշصرʱͷŽ䲢黹
+     * 
+     * @param sql       SQL
+     * @param mapper    ӳ
+     * @param fetchSize ÿȡ
+     * @param params    ˳󶨣
+     * @return 
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> Stream<T> queryForStream(String sql, RowMapper<T> mapper, int fetchSize, Object... params)
+            throws SQLException {
+        return queryForStream(JDBCUtil.getReadConnection(), sql, mapper, fetchSize, params);
+    }
+
+    /**
+     * ʽѯ罨ڴҪύд룬ܶĴӿ⣩
+     * 
+     * @see #queryForStream(String, RowMapper, int, Object...)
+     */
+    protected <T> Stream<T> queryForStreamFromPrimary(String sql, RowMapper<T> mapper, int fetchSize,
+            Object... params) throws SQLException {
+        return queryForStream(JDBCUtil.getConnection(), sql, mapper, fetchSize, params);
+    }
+
+    private <T> Stream<T> queryForStream(Connection conn, String sql, RowMapper<T> mapper, int fetchSize,
+            Object... params) throws SQLException {
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            bindParams(pstmt, params);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            JDBCUtil.close(rs, pstmt, conn);
+            throw e;
+        }
+
+        ResultSet cursor = rs;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.mapRow(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("ʽȡʧ", e);
+                }
+            }
+        };
+
+        // رʱͷŽ䲢黹
+        Statement stmt = pstmt;
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> JDBCUtil.close(cursor, stmt, conn));
+    }
+
+    /**
+     * ִINSERT/UPDATE/DELETE
+     * 
+     * @param sql    SQL
+     * @param params ˳󶨣
+     * @return Ӱ
+     * @throws SQLException ݿ쳣
+     */
+    protected int executeUpdate(String sql, Object... params) throws SQLException {
+        JDBCUtil.markWrite();
+        try (Connection conn = JDBCUtil.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindParams(pstmt, params);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * ִͬһINSERT/UPDATE/DELETEһexecuteBatch
+     * ڹԪʱ湤ԪύԶύ
+     * 
+     * @param sql  SQL
+     * @param rows ÿеĲ˳󶨣
+     * @return ÿеӰ
+     * @throws SQLException ݿ쳣
+     */
+    protected int[] executeBatch(String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        JDBCUtil.markWrite();
+        try (Connection conn = JDBCUtil.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Object[] params : rows) {
+                bindParams(pstmt, params);
+                pstmt.addBatch();
+            }
+            return pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * ִINSERTӰΪ0мΪδκС
+     * 
+     * @see #executeBatch(String, Collection, int, StatementBinder, String)
+     */
+    protected <T> BatchResult executeBatch(String sql, Collection<T> items, int batchSize,
+            StatementBinder<T> binder) throws SQLException {
+        return executeBatch(sql, items, batchSize, binder, "δκ");
+    }
+
+    /**
+     * ִͬһSQLӡÿbatchSizeеһexecuteBatch
+     * зִʧعͳһύڹԪʱ湤Ԫύع
+     * 
+     * @param sql        SQL
+     * @param items      ҪдĶ
+     * @param batchSize  ÿexecuteBatchύ
+     * @param binder     
+     * @param missingRow ӰΪ0ʱ¼ʧԭUPDATEڣ
+     * @return ִн
+     * @throws SQLException ݿ쳣
+     */
+    protected <T> BatchResult executeBatch(String sql, Collection<T> items, int batchSize,
+            StatementBinder<T> binder, String missingRow) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("С0");
+        }
+
+        BatchResult result = new BatchResult(items.size());
+        if (items.isEmpty()) {
+            result.markCommitted();
+            return result;
+        }
+
+        JDBCUtil.markWrite();
+        try (Connection conn = JDBCUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int rowIndex = 0;
+                int chunkStart = 0;
+                for (T item : items) {
+                    binder.bind(pstmt, item);
+                    pstmt.addBatch();
+                    rowIndex++;
+                    if (rowIndex - chunkStart == batchSize) {
+                        flushBatch(pstmt, chunkStart, batchSize, missingRow, result);
+                        chunkStart = rowIndex;
+                    }
+                }
+                if (rowIndex > chunkStart) {
+                    flushBatch(pstmt, chunkStart, rowIndex - chunkStart, missingRow, result);
+                }
+
+                if (!result.hasFailures()) {
+                    conn.commit();
+                    result.markCommitted();
+                }
+            } finally {
+                // δύʧУ󶨲ִʱ׳κ쳣һɻع
+                // ָԶύʱѾִеķύ
+                if (!result.isCommitted()) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ִһ䲢м¼
+     * ʱִܼУΪEXECUTE_FAILEDҲֱֹ̣ͣΪʧ
+     */
+    private static void flushBatch(PreparedStatement pstmt, int chunkStart, int chunkSize, String missingRow,
+            BatchResult result)
+            throws SQLException {
+        int[] counts;
+        String error = null;
+        try {
+            counts = pstmt.executeBatch();
+        } catch (BatchUpdateException e) {
+            counts = e.getUpdateCounts();
+            error = e.getMessage();
+        } finally {
+            result.addRoundTrip();
+            pstmt.clearBatch();
+        }
+
+        for (int i = 0; i < chunkSize; i++) {
+            int rowIndex = chunkStart + i;
+            if (counts == null || i >= counts.length) {
+                result.addNotExecuted(rowIndex, "δִУ" + error);
+            } else if (counts[i] == Statement.EXECUTE_FAILED) {
+                result.addFailure(rowIndex, error);
+            } else if (counts[i] == 0) {
+                result.addFailure(rowIndex, missingRow);
+            } else {
+                // 0SUCCESS_NO_INFOֵINSERTдܲм
+                result.addSuccess();
+            }
+        }
+    }
+
+    /**
+     * ˳󶨲java.timeתΪӦJDBC
+     */
+    protected static void bindParams(PreparedStatement pstmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof LocalDateTime) {
+                pstmt.setTimestamp(i + 1, Timestamp.valueOf((LocalDateTime) param));
+            } else if (param instanceof LocalDate) {
+                pstmt.setDate(i + 1, Date.valueOf((LocalDate) param));
+            } else if (param instanceof LocalTime) {
+                pstmt.setTime(i + 1, Time.valueOf((LocalTime) param));
+            } else {
+                pstmt.setObject(i + 1, param);
+            }
+        }
+    }
+
+    // ȡΪյʱ
+    protected static LocalDateTime getLocalDateTime(ResultSet rs, int columnIndex) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(columnIndex);
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,103 @@
+package main.java.dao;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * д
+ * ¼ɹʧмԭݿԼǷύ
+ */
+public class BatchResult {
+    // ύ
+    private final int totalCount;
+
+    // ִгɹ
+    private int successCount;
+
+    // ʧܵУкţ0ʼӦ뼯ϵĵ˳ -> ʧԭ
+    private final Map<Integer, String> failures = new LinkedHashMap<>();
+
+    // ڳִֹͣСûִеУҲfailuresУعԭ
+    private final Set<Integer> notExecuted = new HashSet<>();
+
+    // executeBatchôݿ
+    private int roundTrips;
+
+    // Ƿύʧʱعύ
+    private boolean committed;
+
+    public BatchResult(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    // Getter
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public Map<Integer, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * ǷǰгִֹͣжδִУδ⣩
+     */
+    public boolean isNotExecuted(int rowIndex) {
+        return notExecuted.contains(rowIndex);
+    }
+
+    /**
+     * Ƿʧ
+     */
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    // ·DAOʵ¼ִʹ
+    void addSuccess() {
+        successCount++;
+    }
+
+    void addFailure(int rowIndex, String reason) {
+        failures.put(rowIndex, reason);
+    }
+
+    void addNotExecuted(int rowIndex, String reason) {
+        failures.put(rowIndex, reason);
+        notExecuted.add(rowIndex);
+    }
+
+    void addRoundTrip() {
+        roundTrips++;
+    }
+
+    void markCommitted() {
+        committed = true;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "totalCount=" + totalCount +
+                ", successCount=" + successCount +
+                ", failureCount=" + failures.size() +
+                ", roundTrips=" + roundTrips +
+                ", committed=" + committed +
+                '}';
+    }
+}
@@ -0,0 +1,310 @@
+package main.java.dao;
+
+import main.java.entity.Doctor;
+import main.java.util.UnitOfWork;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * ҽݷװ
+ * getByIdнĶ͸棨LRṶ + ʱ䣩дʹӦʧЧ෽ֱίиװεDAO
+ * δʱأѴӿδƵľݻһʱ䣻
+ * ддʧЧһΣڹԪʱύʧЧһΣύǰصľ
+ */
+public class CachedDoctorDAO implements DoctorDAO {
+
+    // Ĭ໺ҽ
+    public static final int DEFAULT_MAX_SIZE = 2000;
+
+    // Ĭϻʱ䣨룩
+    public static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000L;
+
+    // װεҽDAO
+    private final DoctorDAO delegate;
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    // ˳еĻδʵڶףзʶcacheڽУ
+    private final LinkedHashMap<String, CacheEntry> cache;
+
+    // д͸ڼдؽ뻺棬ݸʧЧ
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    // ͳƼ
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public CachedDoctorDAO(DoctorDAO delegate) {
+        this(delegate, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    public CachedDoctorDAO(DoctorDAO delegate, int maxSize, long ttlMillis) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("װεҽDAOΪ");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("0");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ʱ0");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > CachedDoctorDAO.this.maxSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Doctor getById(String doctorId) throws Exception {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CacheEntry entry = cache.get(doctorId);
+            if (entry != null) {
+                if (entry.expireAt > now) {
+                    hitCount.increment();
+                    return copyOf(entry.doctor);
+                }
+                // ѹڣƳδд
+                cache.remove(doctorId);
+                evictionCount.increment();
+            }
+        }
+
+        missCount.increment();
+        long generation = writeGeneration.get();
+        Doctor doctor = delegate.getByIdFromPrimary(doctorId);
+        if (doctor != null) {
+            synchronized (cache) {
+                if (generation == writeGeneration.get()) {
+                    cache.put(doctorId, new CacheEntry(copyOf(doctor), now + ttlMillis));
+                }
+            }
+        }
+        return doctor;
+    }
+
+    @Override
+    public Doctor getByIdFromPrimary(String doctorId) throws Exception {
+        return delegate.getByIdFromPrimary(doctorId);
+    }
+
+    @Override
+    public void add(Doctor doctor) throws Exception {
+        try {
+            delegate.add(doctor);
+        } finally {
+            invalidate(doctor.getDoctorId());
+        }
+    }
+
+    @Override
+    public BatchResult addAll(Collection<Doctor> doctors) throws Exception {
+        try {
+            return delegate.addAll(doctors);
+        } finally {
+            invalidateAll(doctors);
+        }
+    }
+
+    @Override
+    public BatchResult addAll(Collection<Doctor> doctors, int batchSize) throws Exception {
+        try {
+            return delegate.addAll(doctors, batchSize);
+        } finally {
+            invalidateAll(doctors);
+        }
+    }
+
+    @Override
+    public void update(Doctor doctor) throws Exception {
+        try {
+            delegate.update(doctor);
+        } finally {
+            invalidate(doctor.getDoctorId());
+        }
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<Doctor> doctors) throws Exception {
+        try {
+            return delegate.updateAll(doctors);
+        } finally {
+            invalidateAll(doctors);
+        }
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<Doctor> doctors, int batchSize) throws Exception {
+        try {
+            return delegate.updateAll(doctors, batchSize);
+        } finally {
+            invalidateAll(doctors);
+        }
+    }
+
+    @Override
+    public void delete(String doctorId) throws Exception {
+        try {
+            delegate.delete(doctorId);
+        } finally {
+            invalidate(doctorId);
+        }
+    }
+
+    @Override
+    public List<Doctor> getAll() throws Exception {
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<Doctor> streamAll() throws Exception {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void forEach(Consumer<Doctor> action) throws Exception {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public Page<Doctor> getPage(String cursor, int pageSize) throws Exception {
+        return delegate.getPage(cursor, pageSize);
+    }
+
+    @Override
+    public Page<Doctor> getPageByDepartment(String department, String cursor, int pageSize) throws Exception {
+        return delegate.getPageByDepartment(department, cursor, pageSize);
+    }
+
+    /**
+     * ʹָҽĻʧЧ
+     * ڹԪڵʱύʧЧһΣύǰ̴߳Ǿݣѱ뻺
+     * 
+     * @param doctorId ҽID
+     */
+    public void invalidate(String doctorId) {
+        evict(doctorId);
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCommit(() -> evict(doctorId));
+        }
+    }
+
+    private void evict(String doctorId) {
+        writeGeneration.incrementAndGet();
+        synchronized (cache) {
+            cache.remove(doctorId);
+        }
+    }
+
+    /**
+     * ȫ
+     */
+    public void invalidateAll() {
+        writeGeneration.incrementAndGet();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private void invalidateAll(Collection<Doctor> doctors) {
+        if (doctors == null) {
+            return;
+        }
+        evictAll(doctors);
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCommit(() -> evictAll(doctors));
+        }
+    }
+
+    private void evictAll(Collection<Doctor> doctors) {
+        writeGeneration.incrementAndGet();
+        synchronized (cache) {
+            for (Doctor doctor : doctors) {
+                if (doctor != null) {
+                    cache.remove(doctor.getDoctorId());
+                }
+            }
+        }
+    }
+
+    // ͳϢ
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * ȡʣ޷ʱ0
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * ȡǰҽδĹ
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // бͶⷵصĶǸֹ÷޸ĻڵĶ
+    private static Doctor copyOf(Doctor doctor) {
+        Doctor copy = new Doctor(doctor.getName(), doctor.getPassword(),
+                doctor.getDepartment(), doctor.getSpecialty());
+        copy.setDoctorId(doctor.getDoctorId());
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedDoctorDAO{" +
+                "size=" + size() +
+                ", maxSize=" + maxSize +
+                ", ttlMillis=" + ttlMillis +
+                ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() +
+                ", evictionCount=" + getEvictionCount() +
+                '}';
+    }
+
+    // ҽ + ʱ
+    private static class CacheEntry {
+        private final Doctor doctor;
+        private final long expireAt;
+
+        CacheEntry(Doctor doctor, long expireAt) {
+            this.doctor = doctor;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package main.java.dao;
 
 import main.java.entity.Department;
 import main.java.entity.Doctor;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,10 +14,25 @@ public interface DepartmentDAO {
      * ݲƲѯ
      * 
      * @param deptName 
-     * @return ӦĲŶ򷵻null
+     * @return ӦĲŶ󣨸޸ӰѴ洢Ĳţ򷵻null
      */
     Department findByDeptName(String deptName);
 
+    /**
+     * ҽIDѯ
+     * 
+     * @param doctorId ҽID
+     * @return ҽڵĲţҽκβ򷵻null
+     */
+    Department findByDoctorId(String doctorId);
+
+    /**
+     * ȡв
+     * 
+     * @return бգûвʱؿб
+     */
+    List<Department> findAll();
+
     /**
      * ²
      * 
@@ -58,7 +74,14 @@ public interface DepartmentDAO {
      * ȡµҽ
      * 
      * @param deptName 
-     * @return ҽбŲ򷵻ؿб
+     * @return ҽбֻգŲ򷵻ؿб
      */
     List<Doctor> getDoctorsInDepartment(String deptName);
+
+    /**
+     * øĲ滻ǰȫţʱӿջָ
+     * 
+     * @param departments ż
+     */
+    void replaceAll(Collection<Department> departments);
 }
\ No newline at end of file
@@ -2,22 +2,107 @@ package main.java.dao;
 
 import main.java.entity.Department;
 import main.java.entity.Doctor;
+
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * ݷʽӿڵʵ࣬ڴ洢ʵֻ
+ * ͬһŵдڰɢеڴִУ֮ͬ໥
+ * ҽӲ־DepartmentJournalÿ޸ڲŵд׷־޸ڴ棬
+ * ͬһŵ־˳ڴ޸˳һ£־дʧʱ޸ĲЧ
+ * replaceAllڼдл½ӳ䣬뵥޸Ľ
+ * дʱ÷Ŷĸѯʱظ÷ԼĲŶ޸Ĳƹ־ҽ
+ * ޸Ĳֻͨķ
  */
 public class DepartmentDAOImpl implements DepartmentDAO {
 
-    // ڴ洢ԲΪΨһ
-    private static final Map<String, Department> departmentMap = new HashMap<>();
+    // ڴ洢ӳ + ҽreplaceAllʱ滻
+    private static volatile State state = new State();
+
+    // ɢедͬһŵ޸ģд־ˢִ̣УͬŴ໥
+    // ־ڡConcurrentHashMapcompute֮д룬ˢʱռסӳͰ
+    private static final Object[] departmentLocks = new Object[64];
+
+    static {
+        for (int i = 0; i < departmentLocks.length; i++) {
+            departmentLocks[i] = new Object();
+        }
+    }
+
+    // ־Ϊnullʱ¼
+    private static volatile DepartmentJournal journal;
+
+    // ޸Ĳж˴˲ɼʱд֤־һ
+    private static final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * ӳҽһ滻ȡһüɵõһµ
+     */
+    private static class State {
+        // ԲΪΨһ
+        final Map<String, Department> departments = new ConcurrentHashMap<>();
+
+        // ҽID -> ƣҽ鲿ΪO(1)
+        final Map<String, String> doctorIndex = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 㣺ĳһʱȫŵĸӦ־
+     */
+    public static class Checkpoint {
+        private final List<Department> departments;
+        private final long journalSequence;
+
+        Checkpoint(List<Department> departments, long journalSequence) {
+            this.departments = departments;
+            this.journalSequence = journalSequence;
+        }
+
+        public List<Department> getDepartments() {
+            return departments;
+        }
+
+        // һ־¼ţδҽ־ʱΪ0
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
 
     @Override
     public Department findByDeptName(String deptName) {
-        return departmentMap.get(deptName);
+        if (deptName == null) {
+            return null;
+        }
+        return copyOf(state.departments.get(deptName));
+    }
+
+    @Override
+    public Department findByDoctorId(String doctorId) {
+        if (doctorId == null) {
+            return null;
+        }
+        State current = state;
+        String deptName = current.doctorIndex.get(doctorId);
+        return deptName == null ? null : copyOf(current.departments.get(deptName));
+    }
+
+    @Override
+    public List<Department> findAll() {
+        Collection<Department> departments = state.departments.values();
+        List<Department> copies = new ArrayList<>(departments.size());
+        for (Department department : departments) {
+            copies.add(copyOf(department));
+        }
+        return copies;
     }
 
     @Override
@@ -25,11 +110,19 @@ public class DepartmentDAOImpl implements DepartmentDAO {
         if (department == null || department.getDeptName() == null) {
             throw new IllegalArgumentException("ŶƲΪ");
         }
-        String deptName = department.getDeptName();
-        if (departmentMap.containsKey(deptName)) {
-            throw new IllegalArgumentException("òѴڣ" + deptName);
-        }
-        departmentMap.put(deptName, department);
+        Department stored = copyOf(department);
+        String deptName = stored.getDeptName();
+        withDepartmentLock(deptName, current -> {
+            if (current.departments.containsKey(deptName)) {
+                throw new IllegalArgumentException("òѴڣ" + deptName);
+            }
+            DepartmentJournal log = journal;
+            if (log != null) {
+                log.logAddDepartment(stored);
+            }
+            indexDoctors(current, stored);
+            current.departments.put(deptName, stored);
+        });
     }
 
     @Override
@@ -37,11 +130,21 @@ public class DepartmentDAOImpl implements DepartmentDAO {
         if (department == null || department.getDeptName() == null) {
             throw new IllegalArgumentException("ŶƲΪ");
         }
-        String deptName = department.getDeptName();
-        if (!departmentMap.containsKey(deptName)) {
-            throw new IllegalArgumentException("òŲڣ" + deptName);
-        }
-        departmentMap.put(deptName, department);
+        Department stored = copyOf(department);
+        String deptName = stored.getDeptName();
+        withDepartmentLock(deptName, current -> {
+            Department existing = current.departments.get(deptName);
+            if (existing == null) {
+                throw new IllegalArgumentException("òŲڣ" + deptName);
+            }
+            DepartmentJournal log = journal;
+            if (log != null) {
+                log.logUpdateDepartment(stored);
+            }
+            unindexDoctors(current, existing);
+            indexDoctors(current, stored);
+            current.departments.put(deptName, stored);
+        });
     }
 
     @Override
@@ -49,39 +152,257 @@ public class DepartmentDAOImpl implements DepartmentDAO {
         if (deptName == null) {
             throw new IllegalArgumentException("ƲΪ");
         }
-        departmentMap.remove(deptName);
+        withDepartmentLock(deptName, current -> {
+            Department existing = current.departments.get(deptName);
+            if (existing == null) {
+                return;
+            }
+            DepartmentJournal log = journal;
+            if (log != null) {
+                log.logDeleteDepartment(deptName);
+            }
+            current.departments.remove(deptName);
+            unindexDoctors(current, existing);
+        });
     }
 
     @Override
     public void addDoctorToDepartment(String deptName, Doctor doctor) {
-        Department department = findByDeptName(deptName);
-        if (department == null) {
-            throw new IllegalArgumentException("Ųڣ" + deptName);
-        }
         if (doctor == null) {
             throw new IllegalArgumentException("ҽΪ");
         }
-        department.addDoctor(doctor);
+        mutateDepartment(deptName, log -> log.logAddDoctor(deptName, doctor), (current, department) -> {
+            department.addDoctor(doctor);
+            if (doctor.getDoctorId() != null) {
+                current.doctorIndex.put(doctor.getDoctorId(), deptName);
+            }
+        });
     }
 
     @Override
     public void removeDoctorFromDepartment(String deptName, Doctor doctor) {
-        Department department = findByDeptName(deptName);
-        if (department == null) {
-            throw new IllegalArgumentException("Ųڣ" + deptName);
-        }
         if (doctor == null) {
             throw new IllegalArgumentException("ҽΪ");
         }
-        department.removeDoctor(doctor);
+        mutateDepartment(deptName, log -> log.logRemoveDoctor(deptName, doctor), (current, department) -> {
+            department.removeDoctor(doctor);
+            if (doctor.getDoctorId() != null) {
+                // ָ򱾲ʱƳɾѵŵҽ
+                current.doctorIndex.remove(doctor.getDoctorId(), deptName);
+            }
+        });
     }
 
     @Override
     public List<Doctor> getDoctorsInDepartment(String deptName) {
-        Department department = findByDeptName(deptName);
+        if (deptName == null) {
+            return Collections.emptyList();
+        }
+        // ҽбֻͼ踴
+        Department department = state.departments.get(deptName);
         if (department == null) {
-            return new ArrayList<>();
+            return Collections.emptyList();
         }
         return department.getDoctorList();
     }
+
+    @Override
+    public void replaceAll(Collection<Department> departments) {
+        if (departments == null) {
+            throw new IllegalArgumentException("żϲΪ");
+        }
+        for (Department department : departments) {
+            if (department == null || department.getDeptName() == null) {
+                throw new IllegalArgumentException("ŶƲΪ");
+            }
+        }
+        // µӳнȫһлҪô滻ǰȫţҪô滻
+        State replacement = new State();
+        List<Department> stored = new ArrayList<>(departments.size());
+        for (Department department : departments) {
+            Department copy = copyOf(department);
+            stored.add(copy);
+            replacement.departments.put(copy.getDeptName(), copy);
+        }
+        for (Department department : replacement.departments.values()) {
+            indexDoctors(replacement, department);
+        }
+        // мдȴеĵ޸ɣлڼ䲻޸дɵӳʧ
+        checkpointLock.writeLock().lock();
+        try {
+            DepartmentJournal log = journal;
+            if (log != null) {
+                log.logReplaceAll(stored);
+            }
+            state = replacement;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ҽӲ־֮޸Ķд־
+     * Ӧڴӿջָط־֮ãnullʾټ¼
+     * 
+     * @param departmentJournal ־
+     */
+    public static void attachJournal(DepartmentJournal departmentJournal) {
+        // ȴе޸ɣдѽ־
+        checkpointLock.writeLock().lock();
+        try {
+            journal = departmentJournal;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ǰҽӵĲ־δҽʱnull
+     */
+    public static DepartmentJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * طŲ־ŴafterSequenceļ¼ʱڼؿ֮ã
+     * طڼ䲻ܹҽ־طŵ޸Ļᱻٴд־
+     * 
+     * @param departmentJournal ־
+     * @param afterSequence     հһ־¼
+     * @return طŵļ¼
+     * @throws IOException ȡ־ʧ
+     */
+    public static long replayJournal(DepartmentJournal departmentJournal, long afterSequence) throws IOException {
+        if (departmentJournal == null) {
+            throw new IllegalArgumentException("־Ϊ");
+        }
+        if (journal != null) {
+            throw new IllegalStateException("ط־ǰܹҽӲ־");
+        }
+        DepartmentDAOImpl dao = new DepartmentDAOImpl();
+        return departmentJournal.replay(afterSequence, record -> {
+            try {
+                dao.apply(record);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("طŲŲ־ʧܣţ" + record.getSequence(), e);
+            }
+        });
+    }
+
+    /**
+     * ɼ㣺޸ģȫŲ¼ǰ־
+     * дպ󼴿ɰѹ־
+     * 
+     * @return 
+     */
+    public static Checkpoint checkpoint() {
+        checkpointLock.writeLock().lock();
+        try {
+            Map<String, Department> departments = state.departments;
+            List<Department> copies = new ArrayList<>(departments.size());
+            for (Department department : departments.values()) {
+                copies.add(copyOf(department));
+            }
+            DepartmentJournal current = journal;
+            return new Checkpoint(copies, current == null ? 0 : current.getLastSequence());
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    // طһ־¼
+    private void apply(DepartmentJournal.Record record) {
+        switch (record.getOp()) {
+            case DepartmentJournal.OP_ADD_DEPARTMENT:
+                addDepartment(record.getDepartments().get(0));
+                break;
+            case DepartmentJournal.OP_UPDATE_DEPARTMENT:
+                updateDepartment(record.getDepartments().get(0));
+                break;
+            case DepartmentJournal.OP_DELETE_DEPARTMENT:
+                deleteDepartment(record.getDeptName());
+                break;
+            case DepartmentJournal.OP_ADD_DOCTOR:
+                addDoctorToDepartment(record.getDeptName(), record.getDoctor());
+                break;
+            case DepartmentJournal.OP_REMOVE_DOCTOR:
+                removeDoctorFromDepartment(record.getDeptName(), record.getDoctor());
+                break;
+            case DepartmentJournal.OP_REPLACE_ALL:
+                replaceAll(record.getDepartments());
+                break;
+            default:
+                throw new IllegalArgumentException("δ֪ĲŲͣ" + record.getOp());
+        }
+    }
+
+    /**
+     * ڼ벿ŵдִ޸
+     * ־д루fsyncIntervalMillisΪ0ʱͬˢֻ̣ɢеͬһĲŵ޸
+     */
+    private static void withDepartmentLock(String deptName, Consumer<State> action) {
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (departmentLocks[(deptName.hashCode() & 0x7fffffff) % departmentLocks.length]) {
+                action.accept(state);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ڲŵд޸ĲţŲʱ׳쳣
+     * ҽ˲־ʱloggerд־ִmutation
+     */
+    private void mutateDepartment(String deptName, Consumer<DepartmentJournal> logger,
+            BiConsumer<State, Department> mutation) {
+        if (deptName == null) {
+            throw new IllegalArgumentException("Ųڣ" + deptName);
+        }
+        withDepartmentLock(deptName, current -> {
+            Department department = current.departments.get(deptName);
+            if (department == null) {
+                throw new IllegalArgumentException("Ųڣ" + deptName);
+            }
+            DepartmentJournal log = journal;
+            if (log != null) {
+                logger.accept(log);
+            }
+            mutation.accept(current, department);
+        });
+    }
+
+    // ŵĸҽбҽ
+    private static Department copyOf(Department department) {
+        if (department == null) {
+            return null;
+        }
+        Department copy = new Department();
+        copy.setDeptName(department.getDeptName());
+        for (Doctor doctor : department.getDoctorList()) {
+            copy.addDoctor(doctor);
+        }
+        return copy;
+    }
+
+    // Ϊµҽ
+    private static void indexDoctors(State current, Department department) {
+        String deptName = department.getDeptName();
+        for (Doctor doctor : department.getDoctorList()) {
+            if (doctor.getDoctorId() != null) {
+                current.doctorIndex.put(doctor.getDoctorId(), deptName);
+            }
+        }
+    }
+
+    // Ƴָòŵҽ
+    private static void unindexDoctors(State current, Department department) {
+        String deptName = department.getDeptName();
+        for (Doctor doctor : department.getDoctorList()) {
+            if (doctor.getDoctorId() != null) {
+                current.doctorIndex.remove(doctor.getDoctorId(), deptName);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,531 @@
+package main.java.dao;
+
+import main.java.entity.Department;
+import main.java.entity.Doctor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * ݵ׷ʽ־journal
+ * DepartmentDAOImplÿ޸׷һ¼ɺ̶̨̰߳ͳһˢ̣group fsync
+ * һfsyncڵȫ޸ģΪ0ʱÿ¼дˢ
+ * ʱȻָգطſ֮ļ¼дպѹ־Ѱڿеļ¼
+ * 
+ * ļʽ򣩣ħ(int "FHJL") + 汾(short)֮Ϊļ¼
+ * (int) + CRC32(int) + [(long) + (byte) + ]
+ * ʱһ¼ֻдһ룬־ʱӵһУʧܵļ¼ض
+ */
+public class DepartmentJournal implements Closeable {
+
+    static final int MAGIC = 0x46484A4C;
+
+    static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 2;
+
+    // ¼󳤶ȣΪ
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    // 
+    static final byte OP_ADD_DEPARTMENT = 1;
+    static final byte OP_UPDATE_DEPARTMENT = 2;
+    static final byte OP_DELETE_DEPARTMENT = 3;
+    static final byte OP_ADD_DOCTOR = 4;
+    static final byte OP_REMOVE_DOCTOR = 5;
+    static final byte OP_REPLACE_ALL = 6;
+
+    private final Path file;
+
+    private final long fsyncIntervalMillis;
+
+    private FileChannel channel;
+
+    // һ¼
+    private long lastSequence;
+
+    // ϴˢ̺Ƿµļ¼
+    private boolean dirty;
+
+    private final ScheduledExecutorService syncer;
+
+    private boolean closed;
+
+    private DepartmentJournal(Path file, long fsyncIntervalMillis) {
+        this.file = file;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        if (fsyncIntervalMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "department-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * 򿪣ʱ־ļضĩβļ¼֮ļ¼׷ĩβ
+     * 
+     * @param file                ־ļ
+     * @param fsyncIntervalMillis ˢڣ룩0ʾÿ¼дˢ
+     * @return ־
+     * @throws IOException ʧܻļͷȷ
+     */
+    public static DepartmentJournal open(Path file, long fsyncIntervalMillis) throws IOException {
+        if (fsyncIntervalMillis < 0) {
+            throw new IllegalArgumentException("ˢڲΪ");
+        }
+        DepartmentJournal journal = new DepartmentJournal(file, fsyncIntervalMillis);
+        journal.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (journal.channel.size() == 0) {
+                journal.writeHeader(journal.channel);
+                journal.channel.force(true);
+            }
+            long[] scan = scan(file, Long.MIN_VALUE, null);
+            long validEnd = scan[0];
+            journal.lastSequence = scan[1];
+            if (validEnd < journal.channel.size()) {
+                journal.channel.truncate(validEnd);
+                journal.channel.force(true);
+            }
+            journal.channel.position(validEnd);
+        } catch (IOException | RuntimeException e) {
+            journal.channel.close();
+            if (journal.syncer != null) {
+                journal.syncer.shutdownNow();
+            }
+            throw e;
+        }
+        if (journal.syncer != null) {
+            journal.syncer.scheduleWithFixedDelay(journal::syncQuietly, fsyncIntervalMillis, fsyncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    /**
+     * ˳طŴafterSequenceļ¼
+     * 
+     * @param afterSequence ʼţͨΪм¼־λ
+     * @param action        ÿ¼ִеĲ
+     * @return طŵļ¼
+     * @throws IOException ȡʧ
+     */
+    public synchronized long replay(long afterSequence, Consumer<Record> action) throws IOException {
+        return scan(file, afterSequence, action)[2];
+    }
+
+    /**
+     * һ¼
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * ֤֮ļ¼Ŵsequence־ѹΪաӿջָʱã
+     */
+    public synchronized void advanceSequenceTo(long sequence) {
+        if (sequence > lastSequence) {
+            lastSequence = sequence;
+        }
+    }
+
+    /**
+     * ѹ־ŲupToSequenceļ¼Щ¼ѰڿУ
+     * ļ¼дʱļˢ̺ԭ滻־ļ
+     * 
+     * @param upToSequence հһ¼
+     * @throws IOException ѹʧܣԭ־ֲ䣩
+     */
+    public synchronized void compact(long upToSequence) throws IOException {
+        ensureOpen();
+        channel.force(false);
+        dirty = false;
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeHeader(out);
+                scan(file, upToSequence, record -> {
+                    try {
+                        writeFully(out, record.encoded.duplicate());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.force(true);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+        }
+    }
+
+    /**
+     * ˢ
+     * 
+     * @throws IOException ˢʧ
+     */
+    public synchronized void sync() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * ˢ̲ر־
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        try {
+            sync();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    // ·DepartmentDAOImpl޸ڴǰ׷Ӽ¼
+
+    long logAddDepartment(Department department) {
+        return append(OP_ADD_DEPARTMENT, out -> writeDepartment(out, department));
+    }
+
+    long logUpdateDepartment(Department department) {
+        return append(OP_UPDATE_DEPARTMENT, out -> writeDepartment(out, department));
+    }
+
+    long logDeleteDepartment(String deptName) {
+        return append(OP_DELETE_DEPARTMENT, out -> writeString(out, deptName));
+    }
+
+    long logAddDoctor(String deptName, Doctor doctor) {
+        return append(OP_ADD_DOCTOR, out -> {
+            writeString(out, deptName);
+            writeDoctor(out, doctor);
+        });
+    }
+
+    long logRemoveDoctor(String deptName, Doctor doctor) {
+        return append(OP_REMOVE_DOCTOR, out -> {
+            writeString(out, deptName);
+            writeDoctor(out, doctor);
+        });
+    }
+
+    long logReplaceAll(List<Department> departments) {
+        return append(OP_REPLACE_ALL, out -> {
+            out.writeInt(departments.size());
+            for (Department department : departments) {
+                writeDepartment(out, department);
+            }
+        });
+    }
+
+    // ׷һ¼дʧʱ׳ʱ쳣÷ݴ˷޸
+    private synchronized long append(byte op, PayloadWriter writer) {
+        try {
+            ensureOpen();
+            long sequence = lastSequence + 1;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(sequence);
+            out.writeByte(op);
+            writer.write(out);
+            out.flush();
+
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+            int payloadLength = record.limit() - 8;
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 8, payloadLength);
+            record.putInt(0, payloadLength);
+            record.putInt(4, (int) crc.getValue());
+
+            writeFully(channel, record);
+            lastSequence = sequence;
+            if (syncer == null) {
+                channel.force(false);
+            } else {
+                dirty = true;
+            }
+            return sequence;
+        } catch (IOException e) {
+            throw new RuntimeException("Ų־дʧ", e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Ų־ѹر");
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.flip();
+        writeFully(out, header);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * ˳ɨ־ŴafterSequence¼actionΪnull
+     * 
+     * @return [һ¼Ľλ, һ¼, actionļ¼]
+     */
+    private static long[] scan(Path file, long afterSequence, Consumer<Record> action) throws IOException {
+        try (InputStream in = new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)), 64 * 1024)) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC) {
+                throw new IOException("ǲŲ־ļħȷ" + file);
+            }
+            short version = data.readShort();
+            if (version > VERSION) {
+                throw new IOException("Ų־汾" + version + "ڵǰֵ֧İ汾" + VERSION);
+            }
+
+            long validEnd = HEADER_SIZE;
+            long lastSequence = 0;
+            long delivered = 0;
+            while (true) {
+                byte[] payload;
+                int expectedCrc;
+                try {
+                    int length = data.readInt();
+                    if (length < 9 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    expectedCrc = data.readInt();
+                    payload = new byte[length];
+                    data.readFully(payload);
+                } catch (EOFException e) {
+                    // ĩβ¼дһʱ
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+
+                Record record = Record.decode(payload, expectedCrc);
+                validEnd += 8 + payload.length;
+                lastSequence = record.sequence;
+                if (record.sequence > afterSequence && action != null) {
+                    action.accept(record);
+                    delivered++;
+                }
+            }
+            return new long[] { validEnd, lastSequence, delivered };
+        } catch (EOFException e) {
+            throw new IOException("Ų־ļͷ" + file, e);
+        }
+    }
+
+    private static void writeDepartment(DataOutputStream out, Department department) throws IOException {
+        writeString(out, department.getDeptName());
+        List<Doctor> doctors = department.getDoctorList();
+        out.writeInt(doctors.size());
+        for (Doctor doctor : doctors) {
+            writeDoctor(out, doctor);
+        }
+    }
+
+    private static void writeDoctor(DataOutputStream out, Doctor doctor) throws IOException {
+        writeString(out, doctor.getDoctorId());
+        writeString(out, doctor.getName());
+        writeString(out, doctor.getPassword());
+        writeString(out, doctor.getDepartment());
+        writeString(out, doctor.getSpecialty());
+    }
+
+    // ַ(intUTF-8ֽnullΪ-1) + UTF-8ֽ
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // д¼
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * һ־¼طʱõ
+     */
+    public static class Record {
+        private final long sequence;
+        private final byte op;
+        private final String deptName;
+        private final Doctor doctor;
+        private final List<Department> departments;
+
+        // ԭʼֽڣ + CRC + ݣѹ־ʱԭд
+        private final ByteBuffer encoded;
+
+        private Record(long sequence, byte op, String deptName, Doctor doctor, List<Department> departments,
+                ByteBuffer encoded) {
+            this.sequence = sequence;
+            this.op = op;
+            this.deptName = deptName;
+            this.doctor = doctor;
+            this.departments = departments;
+            this.encoded = encoded;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        byte getOp() {
+            return op;
+        }
+
+        String getDeptName() {
+            return deptName;
+        }
+
+        Doctor getDoctor() {
+            return doctor;
+        }
+
+        List<Department> getDepartments() {
+            return departments;
+        }
+
+        private static Record decode(byte[] payload, int crc) throws IOException {
+            ByteBuffer encoded = ByteBuffer.allocate(8 + payload.length);
+            encoded.putInt(payload.length);
+            encoded.putInt(crc);
+            encoded.put(payload);
+            encoded.flip();
+
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            long sequence = in.getLong();
+            byte op = in.get();
+            String deptName = null;
+            Doctor doctor = null;
+            List<Department> departments = new ArrayList<>();
+            switch (op) {
+                case OP_ADD_DEPARTMENT:
+                case OP_UPDATE_DEPARTMENT:
+                    departments.add(readDepartment(in));
+                    deptName = departments.get(0).getDeptName();
+                    break;
+                case OP_DELETE_DEPARTMENT:
+                    deptName = readString(in);
+                    break;
+                case OP_ADD_DOCTOR:
+                case OP_REMOVE_DOCTOR:
+                    deptName = readString(in);
+                    doctor = readDoctor(in);
+                    break;
+                case OP_REPLACE_ALL:
+                    int count = in.getInt();
+                    for (int i = 0; i < count; i++) {
+                        departments.add(readDepartment(in));
+                    }
+                    break;
+                default:
+                    throw new IOException("δ֪ĲŲͣ" + op + "" + sequence + "");
+            }
+            return new Record(sequence, op, deptName, doctor, departments, encoded);
+        }
+
+        private static Department readDepartment(ByteBuffer in) {
+            Department department = new Department();
+            department.setDeptName(readString(in));
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                department.addDoctor(readDoctor(in));
+            }
+            return department;
+        }
+
+        private static Doctor readDoctor(ByteBuffer in) {
+            String doctorId = readString(in);
+            Doctor doctor = new Doctor(readString(in), readString(in), readString(in), readString(in));
+            if (doctorId != null) {
+                doctor.setDoctorId(doctorId);
+            }
+            return doctor;
+        }
+
+        private static String readString(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+    }
+}
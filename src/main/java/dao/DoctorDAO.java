@@ -1,7 +1,10 @@
 package main.java.dao;
 
 import main.java.entity.Doctor;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * ҽݷʽӿڣҽصݿ
@@ -16,6 +19,25 @@ public interface DoctorDAO {
      */
     void add(Doctor doctor) throws Exception;
 
+    /**
+     * ҽӡJDBCĬС
+     * 
+     * @param doctors ҽ
+     * @return ִнһʧʱعڽгʧ
+     * @throws Exception ݿ쳣
+     */
+    BatchResult addAll(Collection<Doctor> doctors) throws Exception;
+
+    /**
+     * ҽӡJDBC
+     * 
+     * @param doctors   ҽ
+     * @param batchSize ÿexecuteBatchύ
+     * @return ִнһʧʱعڽгʧ
+     * @throws Exception ݿ쳣
+     */
+    BatchResult addAll(Collection<Doctor> doctors, int batchSize) throws Exception;
+
     /**
      * ҽIDѯҽϢ
      * 
@@ -25,6 +47,15 @@ public interface DoctorDAO {
      */
     Doctor getById(String doctorId) throws Exception;
 
+    /**
+     * ҽIDѯҽϢֻӿʱҲӿ⣬ܸӳӰ죩
+     * 
+     * @param doctorId ҽID
+     * @return ҽ򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Doctor getByIdFromPrimary(String doctorId) throws Exception;
+
     /**
      * ҽϢ
      * 
@@ -33,6 +64,25 @@ public interface DoctorDAO {
      */
     void update(Doctor doctor) throws Exception;
 
+    /**
+     * ҽϢӡJDBCĬС
+     * 
+     * @param doctors ҽϣºϢ
+     * @return ִнҽIDڵмΪʧ
+     * @throws Exception ݿ쳣
+     */
+    BatchResult updateAll(Collection<Doctor> doctors) throws Exception;
+
+    /**
+     * ҽϢӡJDBC
+     * 
+     * @param doctors   ҽϣºϢ
+     * @param batchSize ÿexecuteBatchύ
+     * @return ִнҽIDڵмΪʧ
+     * @throws Exception ݿ쳣
+     */
+    BatchResult updateAll(Collection<Doctor> doctors, int batchSize) throws Exception;
+
     /**
      * ҽIDɾҽϢ
      * 
@@ -48,4 +98,44 @@ public interface DoctorDAO {
      * @throws Exception ݿ쳣
      */
     List<Doctor> getAll() throws Exception;
+
+    /**
+     * ķʽҽڷαȡڴռС޹أ
+     * ÷رշصʹtry-with-resourcesرʱ黹ݿ
+     * 
+     * @return ҽ
+     * @throws Exception ݿ쳣
+     */
+    Stream<Doctor> streamAll() throws Exception;
+
+    /**
+     * ҽʽȡϺԶ黹ݿӣ
+     * 
+     * @param action ÿҽִеĲ
+     * @throws Exception ݿ쳣
+     */
+    void forEach(Consumer<Doctor> action) throws Exception;
+
+    /**
+     * ҽID˳ҳѯҽҳÿҳҳ޹أ
+     * 
+     * @param cursor   һҳصα꣬ѯһҳʱΪnull
+     * @param pageSize ÿҳ1Page.MAX_PAGE_SIZE
+     * @return һҳҽ
+     * @throws IllegalArgumentException αЧÿҳΧ
+     * @throws Exception ݿ쳣
+     */
+    Page<Doctor> getPage(String cursor, int pageSize) throws Exception;
+
+    /**
+     * ҽID˳ҳѯĳҵҽҳҪ(department, doctor_id)
+     * 
+     * @param department 
+     * @param cursor     һҳصα꣬ѯһҳʱΪnull
+     * @param pageSize   ÿҳ1Page.MAX_PAGE_SIZE
+     * @return һҳҽ
+     * @throws IllegalArgumentException αЧÿҳΧ
+     * @throws Exception ݿ쳣
+     */
+    Page<Doctor> getPageByDepartment(String department, String cursor, int pageSize) throws Exception;
 }
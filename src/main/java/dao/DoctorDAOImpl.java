@@ -1,109 +1,178 @@
 package main.java.dao;
 
 import main.java.entity.Doctor;
-import main.java.util.JDBCUtil; // ݿ⹤
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.util.ArrayList;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * ҽݷʵ࣬JDBCʵݿ
  */
-public class DoctorDAOImpl implements DoctorDAO {
+public class DoctorDAOImpl extends BaseDAO implements DoctorDAO {
+
+    // ĬСÿexecuteBatchύ
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // ʽѯÿδӷαȡURLеuseCursorFetch=true
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    // ʽгѯУMAPPERеĶȡ˳һһӦ
+    private static final String COLUMNS = "doctor_id, name, password, department, specialty";
+
+    private static final String SELECT_BY_ID_SQL = "SELECT " + COLUMNS + " FROM doctor WHERE doctor_id = ?";
+
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM doctor";
+
+    // ҳdoctor_id˳򣬴һҳһID֮ȡһжǷһҳ
+    private static final String SELECT_FIRST_PAGE_SQL = "SELECT " + COLUMNS + " FROM doctor " +
+            "ORDER BY doctor_id LIMIT ?";
+
+    private static final String SELECT_PAGE_SQL = "SELECT " + COLUMNS + " FROM doctor " +
+            "WHERE doctor_id > ? ORDER BY doctor_id LIMIT ?";
+
+    private static final String SELECT_DEPT_FIRST_PAGE_SQL = "SELECT " + COLUMNS + " FROM doctor " +
+            "WHERE department = ? ORDER BY doctor_id LIMIT ?";
+
+    private static final String SELECT_DEPT_PAGE_SQL = "SELECT " + COLUMNS + " FROM doctor " +
+            "WHERE department = ? AND doctor_id > ? ORDER BY doctor_id LIMIT ?";
+
+    // ҳαͱ
+    private static final String CURSOR_KIND = "doctor";
+    private static final String DEPT_CURSOR_KIND = "doctor-dept";
+
+    private static final String DELETE_SQL = "DELETE FROM doctor WHERE doctor_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO doctor (doctor_id, name, password, department, specialty) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE doctor SET name = ?, password = ?, department = ?, specialty = ? " +
+            "WHERE doctor_id = ?";
+
+    // ӳҽ
+    static final RowMapper<Doctor> MAPPER = rs -> {
+        Doctor doctor = new Doctor();
+        doctor.setDoctorId(rs.getString(1));
+        doctor.setName(rs.getString(2));
+        doctor.setPassword(rs.getString(3));
+        doctor.setDepartment(rs.getString(4));
+        doctor.setSpecialty(rs.getString(5));
+        return doctor;
+    };
 
     @Override
     public void add(Doctor doctor) throws Exception {
-        String sql = "INSERT INTO doctor (doctor_id, name, password, department, specialty) " +
-                "VALUES (?, ?, ?, ?, ?)";
-
-        try (Connection conn = JDBCUtil.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        executeUpdate(INSERT_SQL, doctor.getDoctorId(), doctor.getName(), doctor.getPassword(),
+                doctor.getDepartment(), doctor.getSpecialty());
+    }
 
-            pstmt.setString(1, doctor.getDoctorId());
-            pstmt.setString(2, doctor.getName());
-            pstmt.setString(3, doctor.getPassword());
-            pstmt.setString(4, doctor.getDepartment());
-            pstmt.setString(5, doctor.getSpecialty());
+    @Override
+    public BatchResult addAll(Collection<Doctor> doctors) throws Exception {
+        return addAll(doctors, DEFAULT_BATCH_SIZE);
+    }
 
-            pstmt.executeUpdate();
-        }
+    @Override
+    public BatchResult addAll(Collection<Doctor> doctors, int batchSize) throws Exception {
+        checkNotNull(doctors);
+        return executeBatch(INSERT_SQL, doctors, batchSize, DoctorDAOImpl::bindInsert);
     }
 
     @Override
     public Doctor getById(String doctorId) throws Exception {
-        String sql = "SELECT * FROM doctor WHERE doctor_id = ?";
-        Doctor doctor = null;
-
-        try (Connection conn = JDBCUtil.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, doctorId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    doctor = new Doctor();
-                    doctor.setDoctorId(rs.getString("doctor_id"));
-                    doctor.setName(rs.getString("name"));
-                    doctor.setPassword(rs.getString("password"));
-                    doctor.setDepartment(rs.getString("department"));
-                    doctor.setSpecialty(rs.getString("specialty"));
-                }
-            }
-        }
-        return doctor;
+        return queryForObject(SELECT_BY_ID_SQL, MAPPER, doctorId);
     }
 
     @Override
-    public void update(Doctor doctor) throws Exception {
-        String sql = "UPDATE doctor SET name = ?, password = ?, department = ?, specialty = ? " +
-                "WHERE doctor_id = ?";
+    public Doctor getByIdFromPrimary(String doctorId) throws Exception {
+        return queryForObjectFromPrimary(SELECT_BY_ID_SQL, MAPPER, doctorId);
+    }
 
-        try (Connection conn = JDBCUtil.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    @Override
+    public void update(Doctor doctor) throws Exception {
+        executeUpdate(UPDATE_SQL, doctor.getName(), doctor.getPassword(), doctor.getDepartment(),
+                doctor.getSpecialty(), doctor.getDoctorId());
+    }
 
-            pstmt.setString(1, doctor.getName());
-            pstmt.setString(2, doctor.getPassword());
-            pstmt.setString(3, doctor.getDepartment());
-            pstmt.setString(4, doctor.getSpecialty());
-            pstmt.setString(5, doctor.getDoctorId());
+    @Override
+    public BatchResult updateAll(Collection<Doctor> doctors) throws Exception {
+        return updateAll(doctors, DEFAULT_BATCH_SIZE);
+    }
 
-            pstmt.executeUpdate();
-        }
+    @Override
+    public BatchResult updateAll(Collection<Doctor> doctors, int batchSize) throws Exception {
+        checkNotNull(doctors);
+        return executeBatch(UPDATE_SQL, doctors, batchSize, DoctorDAOImpl::bindUpdate, "ҽID");
     }
 
     @Override
     public void delete(String doctorId) throws Exception {
-        String sql = "DELETE FROM doctor WHERE doctor_id = ?";
+        executeUpdate(DELETE_SQL, doctorId);
+    }
 
-        try (Connection conn = JDBCUtil.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    @Override
+    public List<Doctor> getAll() throws Exception {
+        return queryForList(SELECT_ALL_SQL, MAPPER);
+    }
+
+    @Override
+    public Stream<Doctor> streamAll() throws Exception {
+        return queryForStream(SELECT_ALL_SQL, MAPPER, STREAM_FETCH_SIZE);
+    }
 
-            pstmt.setString(1, doctorId);
-            pstmt.executeUpdate();
+    @Override
+    public void forEach(Consumer<Doctor> action) throws Exception {
+        try (Stream<Doctor> doctors = streamAll()) {
+            doctors.forEach(action);
         }
     }
 
     @Override
-    public List<Doctor> getAll() throws Exception {
-        String sql = "SELECT * FROM doctor";
-        List<Doctor> doctorList = new ArrayList<>();
-
-        try (Connection conn = JDBCUtil.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
-                ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setDoctorId(rs.getString("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setPassword(rs.getString("password"));
-                doctor.setDepartment(rs.getString("department"));
-                doctor.setSpecialty(rs.getString("specialty"));
-                doctorList.add(doctor);
-            }
+    public Page<Doctor> getPage(String cursor, int pageSize) throws Exception {
+        Page.checkPageSize(pageSize);
+        String[] after = Page.decodeCursor(cursor, CURSOR_KIND, 1);
+        List<Doctor> rows = after == null
+                ? queryForList(SELECT_FIRST_PAGE_SQL, MAPPER, pageSize + 1)
+                : queryForList(SELECT_PAGE_SQL, MAPPER, after[0], pageSize + 1);
+        return Page.of(rows, pageSize, doctor -> Page.encodeCursor(CURSOR_KIND, doctor.getDoctorId()));
+    }
+
+    @Override
+    public Page<Doctor> getPageByDepartment(String department, String cursor, int pageSize) throws Exception {
+        Page.checkPageSize(pageSize);
+        // αдϿңʱ
+        String[] after = Page.decodeCursor(cursor, DEPT_CURSOR_KIND, 2);
+        if (after != null && !after[0].equals(department)) {
+            throw new IllegalArgumentException("Чķҳα");
+        }
+        List<Doctor> rows = after == null
+                ? queryForList(SELECT_DEPT_FIRST_PAGE_SQL, MAPPER, department, pageSize + 1)
+                : queryForList(SELECT_DEPT_PAGE_SQL, MAPPER, department, after[1], pageSize + 1);
+        return Page.of(rows, pageSize,
+                doctor -> Page.encodeCursor(DEPT_CURSOR_KIND, department, doctor.getDoctorId()));
+    }
+
+    private static void checkNotNull(Collection<Doctor> doctors) {
+        if (doctors == null) {
+            throw new IllegalArgumentException("ҽϲΪ");
         }
-        return doctorList;
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+        pstmt.setString(1, doctor.getDoctorId());
+        pstmt.setString(2, doctor.getName());
+        pstmt.setString(3, doctor.getPassword());
+        pstmt.setString(4, doctor.getDepartment());
+        pstmt.setString(5, doctor.getSpecialty());
+    }
+
+    private static void bindUpdate(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+        pstmt.setString(1, doctor.getName());
+        pstmt.setString(2, doctor.getPassword());
+        pstmt.setString(3, doctor.getDepartment());
+        pstmt.setString(4, doctor.getSpecialty());
+        pstmt.setString(5, doctor.getDoctorId());
     }
 }
@@ -0,0 +1,118 @@
+package main.java.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ҳseekҳһҳ
+ * һҳӱҳһе֮ѯWHERE  > һҳĩβ LIMIT nʹOFFSET
+ * һµÿҳĴ뷭ڼҳ޹أҳڼɾҲᵼظ©
+ * αBase64룬Ե÷͸ֻӦԭ
+ */
+public class Page<T> {
+
+    // ÿҳ
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // αиֶεķָIDʱУ
+    private static final char SEPARATOR = '\u0001';
+
+    private final List<T> items;
+
+    // һҳα꣬ûһҳʱΪnull
+    private final String nextCursor;
+
+    Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "size=" + items.size() +
+                ", hasNext=" + hasNext() +
+                '}';
+    }
+
+    /**
+     * Уÿҳ
+     */
+    static void checkPageSize(int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("ÿҳ1" + MAX_PAGE_SIZE + "֮");
+        }
+    }
+
+    /**
+     * ɶѯһУpageSize + 1Ľһҳһ˵һҳαȡҳһе
+     * 
+     * @param rows     ѯpageSize + 1
+     * @param pageSize ÿҳ
+     * @param cursorOf һα
+     */
+    static <T> Page<T> of(List<T> rows, int pageSize, CursorFunction<T> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new Page<>(items, cursorOf.cursorOf(items.get(pageSize - 1)));
+    }
+
+    /**
+     * α꣺kindֲͬķҳѯһбα괫һ
+     */
+    static String encodeCursor(String kind, String... keys) {
+        StringBuilder sb = new StringBuilder(kind);
+        for (String key : keys) {
+            sb.append(SEPARATOR).append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * α꣬αΪnullʾһҳnull
+     * 
+     * @throws IllegalArgumentException αЧڸòѯ
+     */
+    static String[] decodeCursor(String cursor, String kind, int keyCount) {
+        if (cursor == null) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Чķҳα");
+        }
+        String[] parts = decoded.split(String.valueOf(SEPARATOR), -1);
+        if (parts.length != keyCount + 1 || !parts[0].equals(kind)) {
+            throw new IllegalArgumentException("Чķҳα");
+        }
+        String[] keys = new String[keyCount];
+        System.arraycopy(parts, 1, keys, 0, keyCount);
+        return keys;
+    }
+
+    /**
+     * һα
+     */
+    interface CursorFunction<T> {
+        String cursorOf(T row);
+    }
+}
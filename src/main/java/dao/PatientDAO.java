@@ -1 +1,118 @@
- 
+package main.java.dao;
+
+import main.java.entity.Patient;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * ݷʽӿڣ廼صݿ
+ */
+public interface PatientDAO {
+
+    /**
+     * »ߣעᣩ֤Żֻѱעʱ׳IllegalArgumentException
+     * 
+     * @param patient ߶
+     * @throws Exception ݿ쳣
+     */
+    void add(Patient patient) throws Exception;
+
+    /**
+     * ӻߣӡJDBCĬС
+     * 
+     * @param patients ߼
+     * @return ִнһʧʱعڽгʧ
+     * @throws Exception ݿ쳣
+     */
+    BatchResult addAll(Collection<Patient> patients) throws Exception;
+
+    /**
+     * ӻߣӡJDBC
+     * дǰвأ֤Żֻעᡢ뱾ǰظʱΪʧУд
+     * 
+     * @param patients  ߼
+     * @param batchSize ÿexecuteBatchύ
+     * @return ִнһʧʱعڽгʧ
+     * @throws Exception ݿ쳣
+     */
+    BatchResult addAll(Collection<Patient> patients, int batchSize) throws Exception;
+
+    /**
+     * ݻIDѯϢ
+     * 
+     * @param patientId ID
+     * @return ߶򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Patient getById(String patientId) throws Exception;
+
+    /**
+     * »Ϣµ֤Żֻѱעʱ׳IllegalArgumentException
+     * 
+     * @param patient ߶󣨰ºϢ
+     * @throws Exception ݿ쳣
+     */
+    void update(Patient patient) throws Exception;
+
+    /**
+     * ݻIDɾϢ
+     * 
+     * @param patientId ID
+     * @throws Exception ݿ쳣
+     */
+    void delete(String patientId) throws Exception;
+
+    /**
+     * ȡлϢ
+     * 
+     * @return б
+     * @throws Exception ݿ쳣
+     */
+    List<Patient> getAll() throws Exception;
+
+    /**
+     * ķʽлߣڷαȡڴռС޹أ
+     * ÷رշصʹtry-with-resourcesرʱ黹ݿ
+     * 
+     * @return 
+     * @throws Exception ݿ쳣
+     */
+    Stream<Patient> streamAll() throws Exception;
+
+    /**
+     * ֤Ƿע
+     * 
+     * @param identityId ֤
+     * @return ע᷵true
+     * @throws Exception ݿ쳣
+     */
+    boolean existsByIdentityId(String identityId) throws Exception;
+
+    /**
+     * ֻǷע
+     * 
+     * @param phone ֻ
+     * @return ע᷵true
+     * @throws Exception ݿ쳣
+     */
+    boolean existsByPhone(String phone) throws Exception;
+
+    /**
+     * ֤Ųѯ
+     * 
+     * @param identityId ֤
+     * @return ߶򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Patient getByIdentityId(String identityId) throws Exception;
+
+    /**
+     * ֻŲѯ
+     * 
+     * @param phone ֻ
+     * @return ߶򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Patient getByPhone(String phone) throws Exception;
+}
@@ -1 +1,406 @@
- 
+package main.java.dao;
+
+import main.java.entity.Patient;
+import main.java.util.UnitOfWork;
+import main.java.util.ValidationUtil;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * ݷʵ࣬JDBCʵݿ
+ * עڴ֤šֻŸһ¡ + ϣΪʵ
+ * жһʱݿ⣻ܴʱȲϣδУУŲѯȷ
+ * ̵ֻд룺ڵڴ֮עĻߣԻжΪڣزطֲ
+ * ʱrebuildIndex()ʽɨȫ֮ǰֱӲѯݿ
+ * ˿ڵظעԼд֮ĲעᣬֻݿΨһԼuk_identity_iduk_phoneأ
+ * ΥԼʱתΪ뱾زͬġעᡱʾ
+ */
+public class PatientDAOImpl extends BaseDAO implements PatientDAO {
+
+    // ĬСÿexecuteBatchύ
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // ʽѯÿδӷαȡURLеuseCursorFetch=true
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    // ʽгѯУMAPPERеĶȡ˳һһӦԱ֤ż㣬洢
+    private static final String COLUMNS = "patient_id, name, password, identity_id, phone";
+
+    private static final String SELECT_BY_ID_SQL = "SELECT " + COLUMNS + " FROM patient WHERE patient_id = ?";
+
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM patient";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM patient";
+
+    // ֻҪ
+    private static final String SELECT_KEYS_SQL = "SELECT patient_id, identity_id, phone FROM patient";
+
+    private static final String SELECT_ID_BY_IDENTITY_SQL = "SELECT patient_id FROM patient WHERE identity_id = ?";
+
+    private static final String SELECT_ID_BY_PHONE_SQL = "SELECT patient_id FROM patient WHERE phone = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM patient WHERE patient_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO patient (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE patient SET name = ?, password = ?, identity_id = ?, phone = ? " +
+            "WHERE patient_id = ?";
+
+    // ʱΪԤı¡  *  ȷС
+    private static final int INDEX_GROWTH_FACTOR = 2;
+
+    // ֤šֻrebuildIndex()֮ǰΪnull
+    private static volatile PatientIndex index;
+
+    // ڽڼɾͬʱд룬ɨ迪ʼ޸Ķʧ
+    private static volatile PatientIndex building;
+
+    // ڼɾĻIDɨƳɨܶɾǰУ
+    private static final List<String> removedDuringBuild = new ArrayList<>();
+
+    // indexbuildingлremovedDuringBuildύصrebuildIndexβ⣬
+    // صҪôдڽҪôֻдѷ֮ʧ
+    private static final Object INDEX_LOCK = new Object();
+
+    // ӳ仼߶
+    static final RowMapper<Patient> MAPPER = rs -> {
+        Patient patient = new Patient();
+        patient.setPatientId(rs.getString(1));
+        patient.setName(rs.getString(2));
+        patient.setPassword(rs.getString(3));
+        patient.setIdentityId(rs.getString(4));
+        patient.setPhone(rs.getString(5));
+        return patient;
+    };
+
+    @Override
+    public void add(Patient patient) throws Exception {
+        checkNotRegistered(patient);
+        try {
+            executeUpdate(INSERT_SQL, patient.getPatientId(), patient.getName(), patient.getPassword(),
+                    patient.getIdentityId(), patient.getPhone());
+        } catch (SQLIntegrityConstraintViolationException e) {
+            throw asDuplicate(patient, e);
+        }
+        indexAfterCommit(patient);
+    }
+
+    @Override
+    public BatchResult addAll(Collection<Patient> patients) throws Exception {
+        return addAll(patients, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public BatchResult addAll(Collection<Patient> patients, int batchSize) throws Exception {
+        if (patients == null) {
+            throw new IllegalArgumentException("߼ϲΪ");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("С0");
+        }
+        // вأڲظظʱ岻д룬뵥addΪһ
+        BatchResult checked = checkBatchNotRegistered(patients);
+        if (checked.hasFailures()) {
+            return checked;
+        }
+        BatchResult result = executeBatch(INSERT_SQL, patients, batchSize, PatientDAOImpl::bindInsert);
+        if (result.isCommitted()) {
+            for (Patient patient : patients) {
+                indexAfterCommit(patient);
+            }
+        } else {
+            mapDuplicateFailures(patients, result);
+        }
+        return result;
+    }
+
+    @Override
+    public Patient getById(String patientId) throws Exception {
+        return queryForObject(SELECT_BY_ID_SQL, MAPPER, patientId);
+    }
+
+    @Override
+    public void update(Patient patient) throws Exception {
+        checkNotRegistered(patient);
+        try {
+            executeUpdate(UPDATE_SQL, patient.getName(), patient.getPassword(), patient.getIdentityId(),
+                    patient.getPhone(), patient.getPatientId());
+        } catch (SQLIntegrityConstraintViolationException e) {
+            throw asDuplicate(patient, e);
+        }
+        indexAfterCommit(patient);
+    }
+
+    @Override
+    public void delete(String patientId) throws Exception {
+        executeUpdate(DELETE_SQL, patientId);
+        UnitOfWork.afterCommit(() -> {
+            synchronized (INDEX_LOCK) {
+                PatientIndex current = index;
+                if (current != null) {
+                    current.remove(patientId);
+                }
+                PatientIndex pending = building;
+                if (pending != null) {
+                    pending.remove(patientId);
+                    removedDuringBuild.add(patientId);
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<Patient> getAll() throws Exception {
+        return queryForList(SELECT_ALL_SQL, MAPPER);
+    }
+
+    @Override
+    public Stream<Patient> streamAll() throws Exception {
+        return queryForStream(SELECT_ALL_SQL, MAPPER, STREAM_FETCH_SIZE);
+    }
+
+    @Override
+    public boolean existsByIdentityId(String identityId) throws Exception {
+        return findIdByIdentityId(identityId) != null;
+    }
+
+    @Override
+    public boolean existsByPhone(String phone) throws Exception {
+        return findIdByPhone(phone) != null;
+    }
+
+    @Override
+    public Patient getByIdentityId(String identityId) throws Exception {
+        String patientId = findIdByIdentityId(identityId);
+        return patientId == null ? null : getById(patientId);
+    }
+
+    @Override
+    public Patient getByPhone(String phone) throws Exception {
+        String patientId = findIdByPhone(phone);
+        return patientId == null ? null : getById(patientId);
+    }
+
+    /**
+     * ʽɨ軼߱½֤šֻʱãҲڹߺؽ
+     * ڼʹþ״νʱֱӲѯݿ⣩ɺ滻
+     * ɨ裬ӿӳٵ¸עĻ߲
+     * 
+     * @return Ļ
+     * @throws Exception ݿ쳣
+     */
+    public static synchronized int rebuildIndex() throws Exception {
+        PatientDAOImpl dao = new PatientDAOImpl();
+        Long count = dao.queryForObjectFromPrimary(COUNT_SQL, rs -> rs.getLong(1));
+        PatientIndex rebuilt = new PatientIndex((count == null ? 0 : count) * INDEX_GROWTH_FACTOR);
+        synchronized (INDEX_LOCK) {
+            removedDuringBuild.clear();
+            building = rebuilt;
+        }
+        boolean scanned = false;
+        try (Stream<String[]> rows = dao.queryForStreamFromPrimary(SELECT_KEYS_SQL,
+                rs -> new String[] { rs.getString(1), rs.getString(2), rs.getString(3) }, STREAM_FETCH_SIZE)) {
+            rows.forEach(row -> rebuilt.put(row[0], row[1], row[2]));
+            scanned = true;
+        } finally {
+            // Ȳɨڼɾֹͣ˫дͬһڣصῴм״̬
+            synchronized (INDEX_LOCK) {
+                if (scanned) {
+                    for (String patientId : removedDuringBuild) {
+                        rebuilt.remove(patientId);
+                    }
+                    index = rebuilt;
+                }
+                building = null;
+                removedDuringBuild.clear();
+            }
+        }
+        return rebuilt.size();
+    }
+
+    /**
+     * ǰĹʣδʱ1
+     */
+    public static double getIndexFalsePositiveRate() {
+        PatientIndex current = index;
+        return current == null ? 1 : current.getExpectedFalsePositiveRate();
+    }
+
+    // ֤Żֻѱעʱ׳쳣
+    private void checkNotRegistered(Patient patient) throws Exception {
+        String patientId = patient.getPatientId();
+        String owner = findIdByIdentityId(patient.getIdentityId());
+        if (owner != null && !owner.equals(patientId)) {
+            throw new IllegalArgumentException("֤ע᣺" + patient.getIdentityId());
+        }
+        owner = findIdByPhone(patient.getPhone());
+        if (owner != null && !owner.equals(patientId)) {
+            throw new IllegalArgumentException("ֻע᣺" + patient.getPhone());
+        }
+    }
+
+    /**
+     * עвأעỼظ뱾ǰظΪʧ
+     * 
+     * @return ؽʧʱжϣд
+     */
+    private BatchResult checkBatchNotRegistered(Collection<Patient> patients) throws Exception {
+        BatchResult result = new BatchResult(patients.size());
+        Set<String> seenIdentityIds = new HashSet<>();
+        Set<String> seenPhones = new HashSet<>();
+        int rowIndex = 0;
+        for (Patient patient : patients) {
+            String identityId = patient.getIdentityId();
+            String phone = patient.getPhone();
+            if (identityId != null && !seenIdentityIds.add(identityId)) {
+                result.addFailure(rowIndex, "֤ظ" + identityId);
+            } else if (phone != null && !seenPhones.add(phone)) {
+                result.addFailure(rowIndex, "ֻظ" + phone);
+            } else {
+                try {
+                    checkNotRegistered(patient);
+                } catch (IllegalArgumentException e) {
+                    result.addFailure(rowIndex, e.getMessage());
+                }
+            }
+            rowIndex++;
+        }
+        return result;
+    }
+
+    /**
+     * Υ֤šֻΨһԼʱתΪעᡱʾԼԭ׳
+     */
+    private static Exception asDuplicate(Patient patient, SQLIntegrityConstraintViolationException e) {
+        String message = duplicateMessage(patient, e.getMessage());
+        return message == null ? e : new IllegalArgumentException(message, e);
+    }
+
+    /**
+     * дΥΨһԼʧԭתΪעᡱʾ
+     * һдΪֵINSERTʱжͬһֻдгֵֵڵظģ
+     * ϳظʱ౨ͬһиļΪδִУ÷ȥظкԭ
+     */
+    private static void mapDuplicateFailures(Collection<Patient> patients, BatchResult result) {
+        Map<Integer, String> failures = new HashMap<>(result.getFailures());
+        List<Integer> collateral = new ArrayList<>();
+        boolean identified = false;
+        int rowIndex = 0;
+        for (Patient patient : patients) {
+            String reason = failures.get(rowIndex);
+            if (reason != null && !result.isNotExecuted(rowIndex)) {
+                String message = duplicateMessage(patient, reason);
+                if (message != null) {
+                    result.addFailure(rowIndex, message);
+                    identified = true;
+                } else if (isUniqueViolation(reason)) {
+                    collateral.add(rowIndex);
+                }
+            }
+            rowIndex++;
+        }
+        if (identified) {
+            for (int index : collateral) {
+                result.addNotExecuted(index, "ͬΥΨһԼ" + failures.get(index));
+            }
+        }
+    }
+
+    // Ϣгָûߵ֤ŻֻʱضӦġעᡱʾ򷵻null
+    private static String duplicateMessage(Patient patient, String error) {
+        if (!isUniqueViolation(error)) {
+            return null;
+        }
+        // Ȳ֤ţ11λֻſǡ18λ֤ŵһ֣֮
+        if (patient.getIdentityId() != null && error.contains(patient.getIdentityId())) {
+            return "֤ע᣺" + patient.getIdentityId();
+        }
+        if (patient.getPhone() != null && error.contains(patient.getPhone())) {
+            return "ֻע᣺" + patient.getPhone();
+        }
+        return null;
+    }
+
+    // MySQLDuplicate entry ... for key ...H2Unique index or primary key violation ...
+    private static boolean isUniqueViolation(String error) {
+        if (error == null) {
+            return false;
+        }
+        String lower = error.toLowerCase(Locale.ROOT);
+        return lower.contains("duplicate") || lower.contains("unique");
+    }
+
+    private String findIdByIdentityId(String rawIdentityId) throws Exception {
+        if (rawIdentityId == null) {
+            return null;
+        }
+        // 淶ʽңPatientбдһ
+        String identityId = ValidationUtil.normalizeIdentityId(rawIdentityId);
+        PatientIndex current = index;
+        if (current != null) {
+            if (!current.mightContainIdentityId(identityId)) {
+                return null;
+            }
+            String patientId = current.getByIdentityId(identityId);
+            if (patientId != null) {
+                return patientId;
+            }
+        }
+        return queryForObjectFromPrimary(SELECT_ID_BY_IDENTITY_SQL, rs -> rs.getString(1), identityId);
+    }
+
+    private String findIdByPhone(String phone) throws Exception {
+        if (phone == null) {
+            return null;
+        }
+        PatientIndex current = index;
+        if (current != null) {
+            if (!current.mightContainPhone(phone)) {
+                return null;
+            }
+            String patientId = current.getByPhone(phone);
+            if (patientId != null) {
+                return patientId;
+            }
+        }
+        return queryForObjectFromPrimary(SELECT_ID_BY_PHONE_SQL, rs -> rs.getString(1), phone);
+    }
+
+    // ύɹѻдعʱд룩
+    private static void indexAfterCommit(Patient patient) {
+        String patientId = patient.getPatientId();
+        String identityId = patient.getIdentityId();
+        String phone = patient.getPhone();
+        UnitOfWork.afterCommit(() -> {
+            synchronized (INDEX_LOCK) {
+                PatientIndex current = index;
+                if (current != null) {
+                    current.put(patientId, identityId, phone);
+                }
+                PatientIndex pending = building;
+                if (pending != null) {
+                    pending.put(patientId, identityId, phone);
+                }
+            }
+        });
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Patient patient) throws SQLException {
+        pstmt.setString(1, patient.getPatientId());
+        pstmt.setString(2, patient.getName());
+        pstmt.setString(3, patient.getPassword());
+        pstmt.setString(4, patient.getIdentityId());
+        pstmt.setString(5, patient.getPhone());
+    }
+}
@@ -0,0 +1,120 @@
+package main.java.dao;
+
+import main.java.util.BloomFilter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ֤šֻŵڴPatientDAOImplʹã
+ * ÿֶһ¡ + һϣֵ -> ID
+ * жһʱֱӷأܴʱϣмõIDΪO(1)
+ * дڱڽУ֤ű֮һ
+ */
+class PatientIndex {
+
+    // 
+    static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final BloomFilter identityFilter;
+    private final BloomFilter phoneFilter;
+
+    // ֤ -> IDֻ -> ID
+    private final Map<String, String> byIdentityId;
+    private final Map<String, String> byPhone;
+
+    // ID -> ֻ֤ţ޸ġɾʱƳֵ
+    private final Map<String, Keys> keysByPatient;
+
+    /**
+     * @param expectedPatients ԤƻСӦռ
+     */
+    PatientIndex(long expectedPatients) {
+        long expected = Math.max(expectedPatients, 1024);
+        this.identityFilter = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        this.phoneFilter = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        int capacity = (int) Math.min(expected, 1 << 24);
+        this.byIdentityId = new ConcurrentHashMap<>(capacity);
+        this.byPhone = new ConcurrentHashMap<>(capacity);
+        this.keysByPatient = new ConcurrentHashMap<>(capacity);
+    }
+
+    boolean mightContainIdentityId(String identityId) {
+        return identityFilter.mightContain(identityId);
+    }
+
+    boolean mightContainPhone(String phone) {
+        return phoneFilter.mightContain(phone);
+    }
+
+    String getByIdentityId(String identityId) {
+        return identityId == null ? null : byIdentityId.get(identityId);
+    }
+
+    String getByPhone(String phone) {
+        return phone == null ? null : byPhone.get(phone);
+    }
+
+    /**
+     * »ߵԭе֤šֻѸıƳ
+     */
+    synchronized void put(String patientId, String identityId, String phone) {
+        if (patientId == null) {
+            return;
+        }
+        Keys old = keysByPatient.put(patientId, new Keys(identityId, phone));
+        if (old != null) {
+            if (old.identityId != null && !old.identityId.equals(identityId)) {
+                byIdentityId.remove(old.identityId, patientId);
+            }
+            if (old.phone != null && !old.phone.equals(phone)) {
+                byPhone.remove(old.phone, patientId);
+            }
+        }
+        if (identityId != null) {
+            identityFilter.put(identityId);
+            byIdentityId.put(identityId, patientId);
+        }
+        if (phone != null) {
+            phoneFilter.put(phone);
+            byPhone.put(phone, patientId);
+        }
+    }
+
+    /**
+     * Ƴߵеλ֮ЩֵĲѯ䵽ϣõδУ
+     */
+    synchronized void remove(String patientId) {
+        Keys old = patientId == null ? null : keysByPatient.remove(patientId);
+        if (old == null) {
+            return;
+        }
+        if (old.identityId != null) {
+            byIdentityId.remove(old.identityId, patientId);
+        }
+        if (old.phone != null) {
+            byPhone.remove(old.phone, patientId);
+        }
+    }
+
+    int size() {
+        return keysByPatient.size();
+    }
+
+    /**
+     * нϸߵĹ
+     */
+    double getExpectedFalsePositiveRate() {
+        return Math.max(identityFilter.getExpectedFalsePositiveRate(), phoneFilter.getExpectedFalsePositiveRate());
+    }
+
+    private static class Keys {
+        private final String identityId;
+        private final String phone;
+
+        Keys(String identityId, String phone) {
+            this.identityId = identityId;
+            this.phone = phone;
+        }
+    }
+}
@@ -1 +1,127 @@
- 
+package main.java.dao;
+
+import main.java.entity.Reservation;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * ԤԼݷʽӿڣԤԼصݲ
+ * ͻҽճ̲ѯڴҽ + ڷͰͰڰʱ򣩣ɨȫ
+ */
+public interface ReservationDAO {
+
+    /**
+     * ԤԼ
+     * 
+     * @param reservation ԤԼ
+     * @throws Exception ݿ쳣
+     */
+    void add(Reservation reservation) throws Exception;
+
+    /**
+     * ԤԼһexecuteBatchһʧܼ׳쳣
+     * UnitOfWorkڵʱ빤Ԫڵдһύ
+     * 
+     * @param reservations ԤԼ
+     * @throws Exception ݿ쳣
+     */
+    void addAll(Collection<Reservation> reservations) throws Exception;
+
+    /**
+     * ԤԼŲѯԤԼ
+     * 
+     * @param reservationId ԤԼ
+     * @return ԤԼ򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Reservation getById(String reservationId) throws Exception;
+
+    /**
+     * ѯߵԤԼԤԼʱ䵹
+     * 
+     * @param patientId ID
+     * @return ԤԼб
+     * @throws Exception ݿ쳣
+     */
+    List<Reservation> getByPatientId(String patientId) throws Exception;
+
+    /**
+     * ҳѯߵԤԼʷԤԼʱ䡢ԤԼID򣨼ҳҪ(patient_id, reservation_time)
+     * 
+     * @param patientId ID
+     * @param cursor    һҳصα꣬ѯһҳʱΪnull
+     * @param pageSize  ÿҳ1Page.MAX_PAGE_SIZE
+     * @return һҳԤԼ
+     * @throws IllegalArgumentException αЧÿҳΧ
+     * @throws Exception ݿ쳣
+     */
+    Page<Reservation> getPageByPatientId(String patientId, String cursor, int pageSize) throws Exception;
+
+    /**
+     * ķʽԤԼʱ˳[from, to)ڵԤԼڵʷ¼ڷαȡ
+     * ÷رշصʹtry-with-resourcesرʱ黹ݿ
+     * 
+     * @param from ʼʱ䣨
+     * @param to   ʱ䣨
+     * @return ԤԼ
+     * @throws Exception ݿ쳣
+     */
+    Stream<Reservation> streamByTime(LocalDateTime from, LocalDateTime to) throws Exception;
+
+    /**
+     * ʱ˳гҽĳռʱԤԼԤԼɣ
+     * 
+     * @param doctorId ҽID
+     * @param date     
+     * @return ԤԼб
+     * @throws Exception ݿ쳣
+     */
+    List<Reservation> getByDoctorAndDate(String doctorId, LocalDate date) throws Exception;
+
+    /**
+     * жҽڸʱ䣨ȷӣǷѱԤԼ
+     * 
+     * @param doctorId        ҽID
+     * @param reservationTime ԤԼʱ
+     * @return ѱռ÷trueȡԤԼռ
+     * @throws Exception ݿ쳣
+     */
+    boolean isTimeTaken(String doctorId, LocalDateTime reservationTime) throws Exception;
+
+    /**
+     * ѯҽ[from, to]ѱռõʱ䣨дԤԼͬɼ
+     * ڹԪڵʱʹùԪӣŰд봦ͬһ
+     * 
+     * @param doctorId ҽID
+     * @param from     ʼʱ䣨
+     * @param to       ʱ䣨
+     * @return ѱռõʱ䣬ȡԤԼռ
+     * @throws Exception ݿ쳣
+     */
+    Set<LocalDateTime> getTakenTimesFromPrimary(String doctorId, LocalDateTime from, LocalDateTime to)
+            throws Exception;
+
+    /**
+     * ԤԼ״̬ȡ/ɣͬʱȡʱ䡢ʱڴ
+     * 
+     * @param reservation ԤԼѵcancel()complete()
+     * @throws Exception ݿ쳣
+     */
+    void updateStatus(Reservation reservation) throws Exception;
+
+    /**
+     * ӳԤԼд󻺳壩ύڴ£ݿдϲ
+     * ڼбɵȴҪдͬһ״̬
+     * δдıgetByIdgetByPatientIdпɼJDBCUtil.destroyDataSource()ʱȫд
+     * ֻɣȡҪͬһͷźԴʹupdateStatus
+     * 
+     * @param reservation ԤԼѵcomplete()
+     * @throws IllegalArgumentException ԤԼ״̬
+     * @throws Exception ݿ쳣
+     */
+    void updateStatusDeferred(Reservation reservation) throws Exception;
+}
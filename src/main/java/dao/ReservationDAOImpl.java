@@ -1 +1,282 @@
- 
+package main.java.dao;
+
+import main.java.entity.Reservation;
+import main.java.util.JDBCUtil;
+import main.java.util.UnitOfWork;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * ԤԼݷʵ࣬JDBCʵݿ
+ * ڴΪʵ״ηĳҽĳʱݿһΣ˺ͨDAOͬά
+ * ӳٵ״̬д󻺳壬ϲд룬ȡʱûеıݿе״̬
+ */
+public class ReservationDAOImpl extends BaseDAO implements ReservationDAO {
+
+    // ʽгѯУMAPPERеĶȡ˳һһӦ
+    private static final String COLUMNS = "reservation_id, patient_id, doctor_id, reservation_time, status, " +
+            "create_time, cancel_time, complete_time";
+
+    private static final String INSERT_SQL = "INSERT INTO reservation (" + COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_BY_ID_SQL = "SELECT " + COLUMNS + " FROM reservation " +
+            "WHERE reservation_id = ?";
+
+    private static final String SELECT_BY_PATIENT_SQL = "SELECT " + COLUMNS + " FROM reservation " +
+            "WHERE patient_id = ? ORDER BY reservation_time DESC";
+
+    // ҳ(reservation_time, reservation_id)һҳһ֮ȡһжǷһҳ
+    private static final String SELECT_PATIENT_FIRST_PAGE_SQL = "SELECT " + COLUMNS + " FROM reservation " +
+            "WHERE patient_id = ? ORDER BY reservation_time DESC, reservation_id DESC LIMIT ?";
+
+    private static final String SELECT_PATIENT_PAGE_SQL = "SELECT " + COLUMNS + " FROM reservation " +
+            "WHERE patient_id = ? AND (reservation_time < ? OR (reservation_time = ? AND reservation_id < ?)) " +
+            "ORDER BY reservation_time DESC, reservation_id DESC LIMIT ?";
+
+    // ҳαͱ
+    private static final String CURSOR_KIND = "reservation";
+
+    private static final String SELECT_BY_TIME_SQL = "SELECT " + COLUMNS + " FROM reservation " +
+            "WHERE reservation_time >= ? AND reservation_time < ? ORDER BY reservation_time";
+
+    // ҽĳռʱԤԼڳʼͰ
+    private static final String SELECT_DOCTOR_DAY_SQL = "SELECT " + COLUMNS + " FROM reservation " +
+            "WHERE doctor_id = ? AND reservation_time >= ? AND reservation_time < ? AND status <> ?";
+
+    private static final String SELECT_TAKEN_TIMES_SQL = "SELECT reservation_time FROM reservation " +
+            "WHERE doctor_id = ? AND reservation_time >= ? AND reservation_time <= ? AND status <> ?";
+
+    private static final String UPDATE_STATUS_SQL = "UPDATE reservation SET status = ?, cancel_time = ?, " +
+            "complete_time = ? WHERE reservation_id = ?";
+
+    // д󻺳ˢʱֻΪԤԼУ֮ͬд״̬ᱻԺľɱ
+    private static final String UPDATE_DEFERRED_STATUS_SQL = UPDATE_STATUS_SQL + " AND status = ?";
+
+    // ӳԤԼ
+    static final RowMapper<Reservation> MAPPER = rs -> new Reservation(
+            rs.getString(1),
+            rs.getString(2),
+            rs.getString(3),
+            getLocalDateTime(rs, 4),
+            rs.getString(5),
+            getLocalDateTime(rs, 6),
+            getLocalDateTime(rs, 7),
+            getLocalDateTime(rs, 8));
+
+    // ʽѯÿδӷαȡURLеuseCursorFetch=true
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    // ״̬д󻺳ֵˢ
+    private static final int STATUS_FLUSH_BATCH_SIZE = 500;
+    private static final long STATUS_FLUSH_INTERVAL_MILLIS = 1000;
+
+    // ҽ + ڷͰԤԼ
+    private static final ReservationIndex index = new ReservationIndex(ReservationDAOImpl::loadDoctorDay);
+
+    // ״̬д󻺳壬Դǰȫд
+    private static final ReservationStatusBuffer statusBuffer = new ReservationStatusBuffer(
+            ReservationDAOImpl::flushStatus, STATUS_FLUSH_BATCH_SIZE, STATUS_FLUSH_INTERVAL_MILLIS);
+
+    static {
+        JDBCUtil.addBeforeDestroyHook(() -> {
+            try {
+                statusBuffer.close();
+            } catch (Exception e) {
+                throw new RuntimeException("ԤԼ״̬дʧܣδд" + statusBuffer.size() + "", e);
+            }
+        });
+    }
+
+    @Override
+    public void add(Reservation reservation) throws Exception {
+        executeUpdate(INSERT_SQL, reservation.getReservationId(), reservation.getPatientId(),
+                reservation.getDoctorId(), reservation.getReservationTime(), reservation.getStatus(),
+                reservation.getCreateTime(), reservation.getCancelTime(), reservation.getCompleteTime());
+        applyToIndexAfterCommit(reservation);
+    }
+
+    @Override
+    public void addAll(Collection<Reservation> reservations) throws Exception {
+        List<Object[]> rows = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            rows.add(new Object[] { reservation.getReservationId(), reservation.getPatientId(),
+                    reservation.getDoctorId(), reservation.getReservationTime(), reservation.getStatus(),
+                    reservation.getCreateTime(), reservation.getCancelTime(), reservation.getCompleteTime() });
+        }
+        executeBatch(INSERT_SQL, rows);
+        for (Reservation reservation : reservations) {
+            applyToIndexAfterCommit(reservation);
+        }
+    }
+
+    @Override
+    public Reservation getById(String reservationId) throws Exception {
+        return overlayPending(queryForObject(SELECT_BY_ID_SQL, MAPPER, reservationId));
+    }
+
+    @Override
+    public List<Reservation> getByPatientId(String patientId) throws Exception {
+        // ߻ỰȡҺڹ߳д룬߸չʱԴܿԤԼ
+        List<Reservation> list = queryForListInSession(patientId, SELECT_BY_PATIENT_SQL, MAPPER, patientId);
+        for (Reservation reservation : list) {
+            overlayPending(reservation);
+        }
+        return list;
+    }
+
+    @Override
+    public Page<Reservation> getPageByPatientId(String patientId, String cursor, int pageSize) throws Exception {
+        Page.checkPageSize(pageSize);
+        String[] after = Page.decodeCursor(cursor, CURSOR_KIND, 3);
+        if (after != null && !after[0].equals(patientId)) {
+            throw new IllegalArgumentException("Чķҳα");
+        }
+        List<Reservation> rows;
+        if (after == null) {
+            rows = queryForListInSession(patientId, SELECT_PATIENT_FIRST_PAGE_SQL, MAPPER, patientId, pageSize + 1);
+        } else {
+            LocalDateTime time;
+            try {
+                time = LocalDateTime.parse(after[1]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Чķҳα");
+            }
+            rows = queryForListInSession(patientId, SELECT_PATIENT_PAGE_SQL, MAPPER, patientId, time, time,
+                    after[2], pageSize + 1);
+        }
+        for (Reservation reservation : rows) {
+            overlayPending(reservation);
+        }
+        return Page.of(rows, pageSize, reservation -> Page.encodeCursor(CURSOR_KIND, patientId,
+                reservation.getReservationTime().toString(), reservation.getReservationId()));
+    }
+
+    @Override
+    public Stream<Reservation> streamByTime(LocalDateTime from, LocalDateTime to) throws Exception {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("ֹʱ䲻Ϊ");
+        }
+        return queryForStream(SELECT_BY_TIME_SQL, MAPPER, STREAM_FETCH_SIZE, from, to)
+                .map(ReservationDAOImpl::overlayPending);
+    }
+
+    @Override
+    public List<Reservation> getByDoctorAndDate(String doctorId, LocalDate date) throws Exception {
+        return index.listDay(doctorId, date);
+    }
+
+    @Override
+    public boolean isTimeTaken(String doctorId, LocalDateTime reservationTime) throws Exception {
+        return index.isTaken(doctorId, reservationTime);
+    }
+
+    @Override
+    public Set<LocalDateTime> getTakenTimesFromPrimary(String doctorId, LocalDateTime from, LocalDateTime to)
+            throws Exception {
+        return new HashSet<>(queryForListFromPrimary(SELECT_TAKEN_TIMES_SQL, rs -> getLocalDateTime(rs, 1),
+                doctorId, from, to, Reservation.STATUS_CANCELLED));
+    }
+
+    @Override
+    public void updateStatus(Reservation reservation) throws Exception {
+        executeUpdate(UPDATE_STATUS_SQL, reservation.getStatus(), reservation.getCancelTime(),
+                reservation.getCompleteTime(), reservation.getReservationId());
+        // ͬд״̬Ȼδдĸ£ύɵıعʱ
+        // ύǰˢµľɱֻԤԼУḲǱд
+        String reservationId = reservation.getReservationId();
+        UnitOfWork.afterCommit(() -> statusBuffer.discard(reservationId));
+        applyToIndexAfterCommit(reservation);
+    }
+
+    @Override
+    public void updateStatusDeferred(Reservation reservation) throws Exception {
+        if (!Reservation.STATUS_COMPLETED.equals(reservation.getStatus())) {
+            // ȡԤԼͷźԴͬһͬд룬ѿճʱԴδͷ
+            throw new IllegalArgumentException("ֻԤԼӳд룬ȡԤԼʹupdateStatus");
+        }
+        ReservationStatusBuffer.PendingStatus status = new ReservationStatusBuffer.PendingStatus(reservation);
+        // ύٵǼǣԪعʱ뻺壻Ǽʧܣѹرպͬдʧܣֻ¼Ӱύ
+        UnitOfWork.afterCommit(() -> {
+            try {
+                statusBuffer.put(status);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        applyToIndexAfterCommit(reservation);
+    }
+
+    /**
+     * д󻺳е״̬ȫдݿ
+     * 
+     * @return дı
+     * @throws Exception ݿ쳣ʧܵıԱڻУ
+     */
+    public static int flushStatusUpdates() throws Exception {
+        return statusBuffer.flush();
+    }
+
+    /**
+     * д󻺳δдݿ״̬
+     */
+    public static int getPendingStatusCount() {
+        return statusBuffer.size();
+    }
+
+    /**
+     * ָ֮ǰͰڱ仯״ηʱԶ֮ǰͰ﹩Ҫǰͷʱã
+     * 
+     * @param date 
+     */
+    public static void evictIndexBefore(LocalDate date) {
+        index.evictBefore(date);
+    }
+
+    // ύٸڹԪʱȵύɹعֲ
+    private static void applyToIndexAfterCommit(Reservation reservation) {
+        UnitOfWork.afterCommit(() -> {
+            try {
+                index.apply(reservation);
+            } catch (Exception e) {
+                // Ͱʧʱ´η´ݿأ֤᷵شĽ
+                index.clear();
+            }
+        });
+    }
+
+    // һдһ״̬
+    private static void flushStatus(List<ReservationStatusBuffer.PendingStatus> batch) throws Exception {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (ReservationStatusBuffer.PendingStatus status : batch) {
+            rows.add(new Object[] { status.status, status.cancelTime, status.completeTime, status.reservationId,
+                    Reservation.STATUS_BOOKED });
+        }
+        UnitOfWork.execute(() -> new ReservationDAOImpl().executeBatch(UPDATE_DEFERRED_STATUS_SQL, rows));
+    }
+
+    // д󻺳δдıݿж״ֻ̬ΪԤԼԤԼˢʱһ£
+    private static Reservation overlayPending(Reservation reservation) {
+        if (reservation != null && Reservation.STATUS_BOOKED.equals(reservation.getStatus())) {
+            ReservationStatusBuffer.PendingStatus status = statusBuffer.get(reservation.getReservationId());
+            if (status != null) {
+                status.applyTo(reservation);
+            }
+        }
+        return reservation;
+    }
+
+    // ҽĳռʱԤԼͰ״ηʱã
+    private static List<Reservation> loadDoctorDay(String doctorId, LocalDate date) throws Exception {
+        return new ReservationDAOImpl().queryForListFromPrimary(SELECT_DOCTOR_DAY_SQL, MAPPER, doctorId,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), Reservation.STATUS_CANCELLED);
+    }
+}
@@ -0,0 +1,180 @@
+package main.java.dao;
+
+import main.java.entity.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ԤԼڴҽ + ڡͰͰڰԤԼʱ䣨ȷӣ
+ * ֻռʱԤԼԤԼɣȡ󼴴Ƴʱ¿Լ
+ * жĳʱǷѱռΪO(log n)гҽĳԤԼֻȡһͰɨȫҲѯݿ
+ * ֻ沢ԤԼĸ÷޸ԼĶcancel()ıֻapply()
+ * ڱ仯״ηʻᶪȥڵͰСֻڱʹҽйأʱ
+ */
+class ReservationIndex {
+
+    /**
+     * Ͱļ״ηĳҽĳʱݿظռʱԤԼ
+     */
+    interface BucketLoader {
+        List<Reservation> load(String doctorId, LocalDate date) throws Exception;
+    }
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final BucketLoader loader;
+
+    // һΰͰʱ
+    private volatile LocalDate evictedOn;
+
+    ReservationIndex(BucketLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * жҽڸʱ䣨ӣǷռʱԤԼ
+     */
+    boolean isTaken(String doctorId, LocalDateTime time) throws Exception {
+        return bucket(doctorId, time.toLocalDate()).slots.containsKey(minuteOf(time));
+    }
+
+    /**
+     * ȡҽڸʱ䣨ӣռʱԤԼ
+     */
+    Reservation find(String doctorId, LocalDateTime time) throws Exception {
+        Reservation reservation = bucket(doctorId, time.toLocalDate()).slots.get(minuteOf(time));
+        return reservation == null ? null : copyOf(reservation);
+    }
+
+    /**
+     * ʱ˳гҽĳռʱԤԼ
+     */
+    List<Reservation> listDay(String doctorId, LocalDate date) throws Exception {
+        return copyAll(bucket(doctorId, date).slots.values());
+    }
+
+    /**
+     * гҽĳ[from, to)ʱռʱԤԼ
+     */
+    List<Reservation> listRange(String doctorId, LocalDate date, LocalTime from, LocalTime to) throws Exception {
+        ConcurrentNavigableMap<LocalTime, Reservation> range = bucket(doctorId, date).slots.subMap(from, to);
+        return copyAll(range.values());
+    }
+
+    /**
+     * ԤԼĵǰ״̬ȡƳ״̬Ǽռ
+     */
+    void apply(Reservation reservation) throws Exception {
+        Bucket bucket = bucket(reservation.getDoctorId(), reservation.getReservationTime().toLocalDate());
+        LocalTime minute = minuteOf(reservation.getReservationTime());
+        if (Reservation.STATUS_CANCELLED.equals(reservation.getStatus())) {
+            // ֻƳͬһԤԼŵĵǼǣֹɾʱ֮ԤԼ
+            bucket.slots.computeIfPresent(minute, (key, existing) ->
+                    Objects.equals(existing.getReservationId(), reservation.getReservationId()) ? null : existing);
+        } else {
+            bucket.slots.put(minute, copyOf(reservation));
+        }
+    }
+
+    /**
+     * ָ֮ǰͰȥڲԤԼͷڴ棩
+     */
+    void evictBefore(LocalDate date) {
+        buckets.keySet().removeIf(key -> key.date.isBefore(date));
+    }
+
+    /**
+     * ֮ķ´ݿ
+     */
+    void clear() {
+        buckets.clear();
+    }
+
+    private Bucket bucket(String doctorId, LocalDate date) throws Exception {
+        evictPastDays();
+        Bucket bucket = buckets.computeIfAbsent(new BucketKey(doctorId, date), key -> new Bucket());
+        if (!bucket.loaded) {
+            synchronized (bucket) {
+                if (!bucket.loaded) {
+                    for (Reservation reservation : loader.load(doctorId, date)) {
+                        bucket.slots.putIfAbsent(minuteOf(reservation.getReservationTime()), reservation);
+                    }
+                    bucket.loaded = true;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    // ڱ仯״ηʶ֮ǰͰʱһҲ޷
+    private void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(evictedOn)) {
+            evictedOn = today;
+            evictBefore(today);
+        }
+    }
+
+    private static List<Reservation> copyAll(Collection<Reservation> reservations) {
+        List<Reservation> copies = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            copies.add(copyOf(reservation));
+        }
+        return copies;
+    }
+
+    private static Reservation copyOf(Reservation reservation) {
+        return new Reservation(reservation.getReservationId(), reservation.getPatientId(),
+                reservation.getDoctorId(), reservation.getReservationTime(), reservation.getStatus(),
+                reservation.getCreateTime(), reservation.getCancelTime(), reservation.getCompleteTime());
+    }
+
+    private static LocalTime minuteOf(LocalDateTime time) {
+        return time.toLocalTime().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    // һҽһԤԼ -> ԤԼ
+    private static class Bucket {
+        private final ConcurrentSkipListMap<LocalTime, Reservation> slots = new ConcurrentSkipListMap<>();
+        private volatile boolean loaded;
+    }
+
+    // ͰļҽID + 
+    private static class BucketKey {
+        private final String doctorId;
+        private final LocalDate date;
+
+        BucketKey(String doctorId, LocalDate date) {
+            this.doctorId = doctorId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return doctorId.equals(other.doctorId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * doctorId.hashCode() + date.hashCode();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package main.java.dao;
+
+import main.java.entity.Reservation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ԤԼ״̬д󻺳壨write-behind
+ * ȡɵ״̬ȵǼڴУͬһԤԼĶαϲΪһΣ
+ * ۵ֵ򵽴ˢʱһһexecuteBatchдݿ
+ * ˢʧܵıڻУ´ˢʱ
+ */
+class ReservationStatusBuffer {
+
+    /**
+     * дһдһ״̬
+     */
+    interface Flusher {
+        void flush(List<PendingStatus> batch) throws Exception;
+    }
+
+    private final Flusher flusher;
+
+    private final int maxBatchSize;
+
+    private final long flushIntervalMillis;
+
+    // ԤԼ -> һε״̬
+    private final Map<String, PendingStatus> pending = new ConcurrentHashMap<>();
+
+    // ͬһʱֻһˢִУdiscardҲȴִеˢ½
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Ƿύһֵδִеˢ
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // putжǼǱcloseдرջ壺closeǰǼǵıᱻһˢд룬
+    // ֮putһܿclosedΪtrueͬд
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    // ˢ̣߳״εǼǱʱдstateLockڽ
+    private ScheduledExecutorService scheduler;
+
+    private boolean closed;
+
+    ReservationStatusBuffer(Flusher flusher, int maxBatchSize, long flushIntervalMillis) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("ֵ0");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("ˢڱ0");
+        }
+        this.flusher = flusher;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Ǽһ״̬ǸԤԼδдľɱ
+     * ѹرգԴ֮ʱֱͬд
+     */
+    void put(PendingStatus status) throws Exception {
+        stateLock.readLock().lock();
+        try {
+            if (!closed) {
+                pending.put(status.reservationId, status);
+                ScheduledExecutorService executor = ensureScheduler();
+                if (pending.size() >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+                    executor.execute(() -> {
+                        flushRequested.set(false);
+                        flushQuietly();
+                    });
+                }
+                return;
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        // ѹرգˢڶԤԼδдľɱͬд룬ɱڱд֮
+        flushLock.lock();
+        try {
+            pending.remove(status.reservationId);
+            flusher.flush(List.of(status));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * ȡԤԼδдݿ״̬
+     */
+    PendingStatus get(String reservationId) {
+        return pending.get(reservationId);
+    }
+
+    /**
+     * ԤԼδд״̬÷ͬд벢ύ˸µ״̬
+     * ԤԼڱˢ£ˢ½ٶ֤״̬ͬд֮
+     */
+    void discard(String reservationId) {
+        if (!pending.containsKey(reservationId)) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            pending.remove(reservationId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * ѻеȫдݿ
+     * дɹıӻƳдڼַԤԼµı´ˢ
+     * 
+     * @return дı
+     * @throws Exception дʧܣʧܵıԱڻУ
+     */
+    int flush() throws Exception {
+        flushLock.lock();
+        try {
+            int written = 0;
+            List<PendingStatus> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            for (PendingStatus status : pending.values()) {
+                batch.add(status);
+                if (batch.size() == maxBatchSize) {
+                    written += flushBatch(batch);
+                    batch = new ArrayList<>(maxBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                written += flushBatch(batch);
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushBatch(List<PendingStatus> batch) throws Exception {
+        flusher.flush(batch);
+        for (PendingStatus status : batch) {
+            // ƳֻƳдһα
+            pending.remove(status.reservationId, status);
+        }
+        return batch.size();
+    }
+
+    /**
+     * δдݿı
+     */
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * ֹͣˢ²ͬдȫʣ֮ıֱͬд
+     * 
+     * @throws Exception дʧ
+     */
+    void close() throws Exception {
+        ScheduledExecutorService executor;
+        stateLock.writeLock().lock();
+        try {
+            closed = true;
+            executor = scheduler;
+            scheduler = null;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // stateLockڵãʱδرգput֮Զⴴ
+    private synchronized ScheduledExecutorService ensureScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "reservation-status-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        return scheduler;
+    }
+
+    /**
+     * һ״̬״̬ + ȡʱ + ʱ䣨ǼʱĿգ֮޸ԤԼӰѵǼǵı
+     */
+    static class PendingStatus {
+        final String reservationId;
+        final String status;
+        final LocalDateTime cancelTime;
+        final LocalDateTime completeTime;
+
+        PendingStatus(Reservation reservation) {
+            this.reservationId = reservation.getReservationId();
+            this.status = reservation.getStatus();
+            this.cancelTime = reservation.getCancelTime();
+            this.completeTime = reservation.getCompleteTime();
+        }
+
+        /**
+         * ѱǵݿԤԼ
+         */
+        void applyTo(Reservation reservation) {
+            reservation.setCancelTime(cancelTime);
+            reservation.setCompleteTime(completeTime);
+            reservation.setStatus(status);
+        }
+    }
+}
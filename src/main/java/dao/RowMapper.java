@@ -0,0 +1,23 @@
+package main.java.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ӳӿڣѽĵǰתΪʵ
+ * ʵఴţȡ˳DAOʽгĲѯбһ
+ * 
+ * @param <T> ʵ
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * ӳǰ
+     * 
+     * @param rs ѶλǰеĽ
+     * @return ʵ
+     * @throws SQLException ȡֵ쳣
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+}
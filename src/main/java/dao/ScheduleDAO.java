@@ -1 +1,142 @@
- 
+package main.java.dao;
+
+import main.java.entity.Schedule;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ŰݷʽӿڣŰصݿ
+ * ԴռͷԵUPDATEݿԭɣڵ㲿ʱͬᳬ
+ */
+public interface ScheduleDAO {
+
+    /**
+     * Ű
+     * 
+     * @param schedule Ű
+     * @throws Exception ݿ쳣
+     */
+    void add(Schedule schedule) throws Exception;
+
+    /**
+     * ŰIDѯŰϢ
+     * 
+     * @param scheduleId ŰID
+     * @return Ű򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Schedule getById(String scheduleId) throws Exception;
+
+    /**
+     * ѯҽŰࣨڡʼʱ
+     * 
+     * @param doctorId ҽID
+     * @return Űб
+     * @throws Exception ݿ쳣
+     */
+    List<Schedule> getByDoctorId(String doctorId) throws Exception;
+
+    /**
+     * ҳѯҽŰ࣬ڡʼʱ䡢ŰID򣨼ҳҪ(doctor_id, schedule_date, start_time)
+     * 
+     * @param doctorId ҽID
+     * @param cursor   һҳصα꣬ѯһҳʱΪnull
+     * @param pageSize ÿҳ1Page.MAX_PAGE_SIZE
+     * @return һҳŰ
+     * @throws IllegalArgumentException αЧÿҳΧ
+     * @throws Exception ݿ쳣
+     */
+    Page<Schedule> getPageByDoctorId(String doctorId, String cursor, int pageSize) throws Exception;
+
+    /**
+     * ŰIDѯŰУSELECT ... FOR UPDATEUnitOfWorkڵãڹԪʱͷ
+     * 
+     * @param scheduleId ŰID
+     * @return Ű򷵻null
+     * @throws Exception ݿ쳣
+     */
+    Schedule getByIdForUpdate(String scheduleId) throws Exception;
+
+    /**
+     * ŰϢ޸ԤԼԴ仯ʹtryBookSlot/releaseSlot
+     * ״̬ͣݿеǰԤԼƵʹŰеԤԼ
+     * 
+     * @param schedule Ű󣨰ºϢ
+     * @throws IllegalStateException Ű಻ڣµĿԤԼСԤԼ
+     * @throws Exception ݿ쳣
+     */
+    void update(Schedule schedule) throws Exception;
+
+    /**
+     * ŰIDɾŰ
+     * 
+     * @param scheduleId ŰID
+     * @throws Exception ݿ쳣
+     */
+    void delete(String scheduleId) throws Exception;
+
+    /**
+     * ռһԴŰδͣʣԴʱԤԼ1ݿԭӲ
+     * 
+     * @param scheduleId ŰID
+     * @return ǷռóɹԴͣŰ಻ʱfalse
+     * @throws Exception ݿ쳣
+     */
+    boolean tryBookSlot(String scheduleId) throws Exception;
+
+    /**
+     * һռöԴŰδͣʣԴcountʱԤԼcountݿԭӲ
+     * 
+     * @param scheduleId ŰID
+     * @param count      ռ
+     * @return ǷռóɹʣԴ㡢ͣŰ಻ʱfalse
+     * @throws Exception ݿ쳣
+     */
+    boolean tryBookSlots(String scheduleId, int count) throws Exception;
+
+    /**
+     * ͷһԴԤԼ0ʱ1ݿԭӲ
+     * 
+     * @param scheduleId ŰID
+     * @return Ƿͷųɹ
+     * @throws Exception ݿ쳣
+     */
+    boolean releaseSlot(String scheduleId) throws Exception;
+
+    /**
+     * ѯҽĳĳʱεʣԴȡڴеĿԾ󣬲ݿ⣬
+     * ʱβѯܸ¼أ̵д룬ʱޣʵࣩ
+     * 
+     * @param doctorId ҽID
+     * @param date     
+     * @param timeSlot ʱΣ硢硢ϣ
+     * @return ʣԴͣ򳬳󴰿ʱΪ0
+     * @throws Exception أ״Ρں¼أʱݿ쳣
+     */
+    int getRemainingSlots(String doctorId, LocalDate date, String timeSlot) throws Exception;
+
+    /**
+     * ѯҽfromdaysÿʱεʣԴȡڴеĿԾ󣬲ݿ⣬
+     * 
+     * @param doctorId ҽID
+     * @param from     ʼ
+     * @param days     
+     * @return Ϊ days * 3 飬±Ϊ ƫ * 3 + ʱΣ012
+     * @throws Exception أ״Ρں¼أʱݿ쳣
+     */
+    int[] getRemainingSlots(String doctorId, LocalDate from, int days) throws Exception;
+
+    /**
+     * Ӹҽɸѡ[from, to]һʣԴҽȡڴеĿԾ󣬲ݿ⣬
+     * 
+     * @param doctorIds ҽIDĳҵȫҽ
+     * @param from      ʼڣ
+     * @param to        ڣ
+     * @return ʣԴҽIDִ˳
+     * @throws Exception أ״Ρں¼أʱݿ쳣
+     */
+    List<String> findDoctorsWithFreeSlots(Collection<String> doctorIds, LocalDate from, LocalDate to)
+            throws Exception;
+}
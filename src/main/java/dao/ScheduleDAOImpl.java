@@ -1 +1,321 @@
- 
+package main.java.dao;
+
+import main.java.entity.Schedule;
+import main.java.util.UnitOfWork;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Űݷʵ࣬JDBCʵݿ
+ * ԴԾ״ѯʱݿؽĴڣ֮ռáͷźԴŰɾύͬ£
+ * ڱ仯״βѯ¼أ󳬹ʹʱ䣨Ĭ60룬setAvailabilityMaxAge
+ * һβѯһ÷¼أ÷ڼڼʹþɾ
+ * ύ޸ɼ̣ڵ㣩д롢Լڼύֻɾ޸ģ
+ *  ʹʱ + һμصĺʱ
+ */
+public class ScheduleDAOImpl extends BaseDAO implements ScheduleDAO {
+
+    // ʽгѯУMAPPERеĶȡ˳һһӦ
+    private static final String COLUMNS = "schedule_id, doctor_id, schedule_date, start_time, end_time, " +
+            "time_slot, available_slots, booked_slots, status";
+
+    private static final String INSERT_SQL = "INSERT INTO schedule (" + COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_BY_ID_SQL = "SELECT " + COLUMNS + " FROM schedule WHERE schedule_id = ?";
+
+    private static final String SELECT_FOR_UPDATE_SQL = SELECT_BY_ID_SQL + " FOR UPDATE";
+
+    private static final String SELECT_BY_DOCTOR_SQL = "SELECT " + COLUMNS + " FROM schedule " +
+            "WHERE doctor_id = ? ORDER BY schedule_date, start_time";
+
+    // ҳ(schedule_date, start_time, schedule_id)һҳһ֮ȡһжǷһҳ
+    // бȽչΪORʽ֤MySQLΧɨ
+    private static final String SELECT_DOCTOR_FIRST_PAGE_SQL = "SELECT " + COLUMNS + " FROM schedule " +
+            "WHERE doctor_id = ? ORDER BY schedule_date, start_time, schedule_id LIMIT ?";
+
+    private static final String SELECT_DOCTOR_PAGE_SQL = "SELECT " + COLUMNS + " FROM schedule " +
+            "WHERE doctor_id = ? AND (schedule_date > ? OR (schedule_date = ? AND (start_time > ? " +
+            "OR (start_time = ? AND schedule_id > ?)))) " +
+            "ORDER BY schedule_date, start_time, schedule_id LIMIT ?";
+
+    // ҳαͱ
+    private static final String CURSOR_KIND = "schedule";
+
+    // дbooked_slotsstatusΪͣʱдеǰԤԼµĿԤԼƵ
+    // ʹõ÷ѹʱԤԼµĿԤԼСԤԼʱ
+    private static final String UPDATE_SQL = "UPDATE schedule SET doctor_id = ?, schedule_date = ?, start_time = ?, " +
+            "end_time = ?, time_slot = ?, available_slots = ?, " +
+            "status = CASE WHEN ? = ? THEN ? WHEN booked_slots >= ? THEN ? ELSE ? END " +
+            "WHERE schedule_id = ? AND booked_slots <= ?";
+
+    private static final String SELECT_WINDOW_SQL = "SELECT " + COLUMNS + " FROM schedule " +
+            "WHERE schedule_date >= ? AND schedule_date < ?";
+
+    private static final String DELETE_SQL = "DELETE FROM schedule WHERE schedule_id = ?";
+
+    // ռúԴͬһɣҪȲѯٸ£ҲҪSELECT ... FOR UPDATE
+    // statusbooked_slots֮ǰֵMySQLҵ˳ֵʱǼ1ǰ
+    private static final String BOOK_SLOT_SQL = "UPDATE schedule SET " +
+            "status = CASE WHEN booked_slots + 1 >= available_slots THEN ? ELSE ? END, " +
+            "booked_slots = booked_slots + 1 " +
+            "WHERE schedule_id = ? AND booked_slots < available_slots AND status <> ?";
+
+    // ռúԴBOOK_SLOT_SQLֻͬһμcount
+    private static final String BOOK_SLOTS_SQL = "UPDATE schedule SET " +
+            "status = CASE WHEN booked_slots + ? >= available_slots THEN ? ELSE ? END, " +
+            "booked_slots = booked_slots + ? " +
+            "WHERE schedule_id = ? AND booked_slots + ? <= available_slots AND status <> ?";
+
+    // ͷźԴͣ״ֲ̬䣬ͷźȻ״̬ص
+    private static final String RELEASE_SLOT_SQL = "UPDATE schedule SET " +
+            "status = CASE WHEN status = ? THEN status ELSE ? END, " +
+            "booked_slots = booked_slots - 1 " +
+            "WHERE schedule_id = ? AND booked_slots > 0";
+
+    // ԾĬϸǵܣ
+    public static final int DEFAULT_AVAILABILITY_DAYS = 14;
+
+    // ʽؿԾʱÿδӷαȡ
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    // ԾĬϵʹʱ䣨룩һѯʱ¼
+    public static final long DEFAULT_AVAILABILITY_MAX_AGE_SECONDS = 60;
+
+    // ԴԾ״ѯ֮ǰΪnull
+    private static volatile AvailabilityMatrix availability;
+
+    // ǰʼصʱ䣨System.nanoTimeӿʼɨ
+    private static volatile long availabilityLoadedNanos;
+
+    // ʹʱ䣨룩
+    private static volatile long availabilityMaxAgeNanos =
+            TimeUnit.SECONDS.toNanos(DEFAULT_AVAILABILITY_MAX_AGE_SECONDS);
+
+    // Ƿе÷¼عڵľ
+    private static final AtomicBoolean availabilityReloading = new AtomicBoolean();
+
+    // ӳŰ
+    static final RowMapper<Schedule> MAPPER = rs -> new Schedule(
+            rs.getString(1),
+            rs.getString(2),
+            rs.getDate(3).toLocalDate(),
+            rs.getTime(4).toLocalTime(),
+            rs.getTime(5).toLocalTime(),
+            rs.getString(6),
+            rs.getInt(7),
+            rs.getInt(8),
+            rs.getString(9));
+
+    @Override
+    public void add(Schedule schedule) throws Exception {
+        executeUpdate(INSERT_SQL, schedule.getScheduleId(), schedule.getDoctorId(), schedule.getScheduleDate(),
+                schedule.getStartTime(), schedule.getEndTime(), schedule.getTimeSlot(),
+                schedule.getAvailableSlots(), schedule.getBookedSlots(), schedule.getStatus());
+        UnitOfWork.afterCommit(() -> putAvailability(schedule));
+    }
+
+    @Override
+    public Schedule getById(String scheduleId) throws Exception {
+        return queryForObject(SELECT_BY_ID_SQL, MAPPER, scheduleId);
+    }
+
+    @Override
+    public List<Schedule> getByDoctorId(String doctorId) throws Exception {
+        return queryForList(SELECT_BY_DOCTOR_SQL, MAPPER, doctorId);
+    }
+
+    @Override
+    public Page<Schedule> getPageByDoctorId(String doctorId, String cursor, int pageSize) throws Exception {
+        Page.checkPageSize(pageSize);
+        String[] after = Page.decodeCursor(cursor, CURSOR_KIND, 4);
+        if (after != null && !after[0].equals(doctorId)) {
+            throw new IllegalArgumentException("Чķҳα");
+        }
+        List<Schedule> rows;
+        if (after == null) {
+            rows = queryForList(SELECT_DOCTOR_FIRST_PAGE_SQL, MAPPER, doctorId, pageSize + 1);
+        } else {
+            LocalDate date;
+            LocalTime startTime;
+            try {
+                date = LocalDate.parse(after[1]);
+                startTime = LocalTime.parse(after[2]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Чķҳα");
+            }
+            rows = queryForList(SELECT_DOCTOR_PAGE_SQL, MAPPER, doctorId, date, date, startTime, startTime,
+                    after[3], pageSize + 1);
+        }
+        return Page.of(rows, pageSize, schedule -> Page.encodeCursor(CURSOR_KIND, doctorId,
+                schedule.getScheduleDate().toString(), schedule.getStartTime().toString(),
+                schedule.getScheduleId()));
+    }
+
+    @Override
+    public Schedule getByIdForUpdate(String scheduleId) throws Exception {
+        if (!UnitOfWork.isActive()) {
+            throw new IllegalStateException("ŰڹԪڽ");
+        }
+        return queryForObjectFromPrimary(SELECT_FOR_UPDATE_SQL, MAPPER, scheduleId);
+    }
+
+    @Override
+    public void update(Schedule schedule) throws Exception {
+        int availableSlots = schedule.getAvailableSlots();
+        int updated = executeUpdate(UPDATE_SQL, schedule.getDoctorId(), schedule.getScheduleDate(),
+                schedule.getStartTime(), schedule.getEndTime(), schedule.getTimeSlot(), availableSlots,
+                schedule.getStatus(), Schedule.STATUS_CANCELLED, Schedule.STATUS_CANCELLED,
+                availableSlots, Schedule.STATUS_FULL, Schedule.STATUS_NORMAL,
+                schedule.getScheduleId(), availableSlots);
+        if (updated == 0) {
+            throw new IllegalStateException("Ű಻ڻԤԼСԤԼ" + schedule.getScheduleId());
+        }
+        UnitOfWork.afterCommit(() -> putAvailability(schedule));
+    }
+
+    @Override
+    public void delete(String scheduleId) throws Exception {
+        executeUpdate(DELETE_SQL, scheduleId);
+        UnitOfWork.afterCommit(() -> {
+            AvailabilityMatrix matrix = availability;
+            if (matrix != null) {
+                matrix.remove(scheduleId);
+            }
+        });
+    }
+
+    @Override
+    public boolean tryBookSlot(String scheduleId) throws Exception {
+        // ӰΪ1ʾռóɹΪ0ʾͣŰ಻
+        boolean booked = executeUpdate(BOOK_SLOT_SQL, Schedule.STATUS_FULL, Schedule.STATUS_NORMAL,
+                scheduleId, Schedule.STATUS_CANCELLED) == 1;
+        if (booked) {
+            adjustAvailabilityAfterCommit(scheduleId, 1);
+        }
+        return booked;
+    }
+
+    @Override
+    public boolean tryBookSlots(String scheduleId, int count) throws Exception {
+        if (count <= 0) {
+            throw new IllegalArgumentException("ռ0");
+        }
+        boolean booked = executeUpdate(BOOK_SLOTS_SQL, count, Schedule.STATUS_FULL, Schedule.STATUS_NORMAL,
+                count, scheduleId, count, Schedule.STATUS_CANCELLED) == 1;
+        if (booked) {
+            adjustAvailabilityAfterCommit(scheduleId, count);
+        }
+        return booked;
+    }
+
+    @Override
+    public boolean releaseSlot(String scheduleId) throws Exception {
+        boolean released = executeUpdate(RELEASE_SLOT_SQL, Schedule.STATUS_CANCELLED, Schedule.STATUS_NORMAL,
+                scheduleId) == 1;
+        if (released) {
+            adjustAvailabilityAfterCommit(scheduleId, -1);
+        }
+        return released;
+    }
+
+    @Override
+    public int getRemainingSlots(String doctorId, LocalDate date, String timeSlot) throws Exception {
+        return availability().getRemaining(doctorId, date, timeSlot);
+    }
+
+    @Override
+    public int[] getRemainingSlots(String doctorId, LocalDate from, int days) throws Exception {
+        if (days < 0) {
+            throw new IllegalArgumentException("Ϊ");
+        }
+        return availability().getRemaining(doctorId, from, days);
+    }
+
+    @Override
+    public List<String> findDoctorsWithFreeSlots(Collection<String> doctorIds, LocalDate from, LocalDate to)
+            throws Exception {
+        return availability().findDoctorsWithFreeSlots(doctorIds, from, to);
+    }
+
+    /**
+     * ¼غԴԾ󣬴ΪstartDatedays
+     * ڼύռáͷԼɾ󣬿ܲᷴӳ¾Уֻ´μأʹʱ֮ʱ
+     * 
+     * @param startDate ʼ
+     * @param days      
+     * @return صŰ
+     * @throws Exception ݿ쳣
+     */
+    public static synchronized int loadAvailability(LocalDate startDate, int days) throws Exception {
+        AvailabilityMatrix matrix = new AvailabilityMatrix(startDate, days);
+        long loadStart = System.nanoTime();
+        try (Stream<Schedule> schedules = new ScheduleDAOImpl().queryForStreamFromPrimary(SELECT_WINDOW_SQL, MAPPER,
+                STREAM_FETCH_SIZE, startDate, startDate.plusDays(days))) {
+            schedules.forEach(matrix::put);
+        }
+        availabilityLoadedNanos = loadStart;
+        availability = matrix;
+        return matrix.scheduleCount();
+    }
+
+    /**
+     * ÿԾʹʱ䣬ԽԽӽݿ⣬¼ԽƵ
+     * 
+     * @param seconds ʹʱ䣨룩
+     */
+    public static void setAvailabilityMaxAge(long seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("ʹʱ0");
+        }
+        availabilityMaxAgeNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    // ǰĿԾδػʼڲǽʱݿأѹʱһ÷¼
+    private static AvailabilityMatrix availability() throws Exception {
+        AvailabilityMatrix matrix = availability;
+        LocalDate today = LocalDate.now();
+        if (matrix == null || !matrix.getStartDate().equals(today)) {
+            synchronized (ScheduleDAOImpl.class) {
+                matrix = availability;
+                if (matrix == null || !matrix.getStartDate().equals(today)) {
+                    loadAvailability(today, DEFAULT_AVAILABILITY_DAYS);
+                    matrix = availability;
+                }
+            }
+        } else if (System.nanoTime() - availabilityLoadedNanos > availabilityMaxAgeNanos
+                && availabilityReloading.compareAndSet(false, true)) {
+            try {
+                loadAvailability(today, DEFAULT_AVAILABILITY_DAYS);
+                matrix = availability;
+            } finally {
+                availabilityReloading.set(false);
+            }
+        }
+        return matrix;
+    }
+
+    // ύٸ¿Ծ󣺻ع󱣳ֲ
+    private static void adjustAvailabilityAfterCommit(String scheduleId, int bookedDelta) {
+        UnitOfWork.afterCommit(() -> {
+            AvailabilityMatrix matrix = availability;
+            if (matrix != null) {
+                matrix.adjustBooked(scheduleId, bookedDelta);
+            }
+        });
+    }
+
+    private static void putAvailability(Schedule schedule) {
+        AvailabilityMatrix matrix = availability;
+        if (matrix != null) {
+            matrix.put(schedule);
+        }
+    }
+}
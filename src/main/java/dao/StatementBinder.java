@@ -0,0 +1,22 @@
+package main.java.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 󶨽ӿڣʵֶõԤϣдʱеã
+ * 
+ * @param <T> ʵ
+ */
+@FunctionalInterface
+public interface StatementBinder<T> {
+
+    /**
+     * һеĲ
+     * 
+     * @param pstmt Ԥ
+     * @param item  ʵ
+     * @throws SQLException ò쳣
+     */
+    void bind(PreparedStatement pstmt, T item) throws SQLException;
+}
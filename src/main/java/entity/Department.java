@@ -1,7 +1,8 @@
 package main.java.entity;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * ࣨ + ҽбȡܣ
@@ -12,7 +13,8 @@ public class Department {
     private String deptName;
 
     // 洢òµҽбʵ֡òҽбܣ
-    private List<Doctor> doctorList = new ArrayList<>();
+    // дʱƣȡ/ʱõǿգɾҽƻڽеı
+    private final List<Doctor> doctorList = new CopyOnWriteArrayList<>();
 
     // Ƶget
     public String getDeptName() {
@@ -25,8 +27,9 @@ public class Department {
     }
 
     // øòµҽбgetset//ɾҽȶ⹦ܣ
+    // ֻͼ÷޷ƹDAOֱ޸ڲб
     public List<Doctor> getDoctorList() {
-        return doctorList;
+        return Collections.unmodifiableList(doctorList);
     }
 
     // ҽidʵ¹
@@ -35,8 +38,9 @@ public class Department {
         this.doctorList.add(doctor);
     }
 
-    // ɾҽDAOʵʹã
+    // ɾҽDAOʵʹãͬһҽIDͬΪͬһҽ
     public void removeDoctor(Doctor doctor) {
-        this.doctorList.remove(doctor);
+        String doctorId = doctor.getDoctorId();
+        this.doctorList.removeIf(d -> d == doctor || (doctorId != null && doctorId.equals(d.getDoctorId())));
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package main.java.entity;
 
+import main.java.util.ValidationUtil;
+
 /**
  * ҽʵ
  * Ӧݿеҽ
@@ -65,7 +67,7 @@ public class Doctor {
         }
 
         // ֤ǷΪ8λ
-        if (!doctorId.matches("\\d{8}")) {
+        if (!ValidationUtil.isDigits(doctorId, 8)) {
             throw new IllegalArgumentException("ҽID8λ");
         }
 
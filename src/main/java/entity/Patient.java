@@ -1,5 +1,7 @@
 package main.java.entity;
 
+import main.java.util.ValidationUtil;
+
 // import java.util.regex.Pattern;
 
 /**
@@ -81,7 +83,7 @@ public class Patient {
         }
 
         // ֤ǷΪ10λ
-        if (!patientId.matches("\\d{10}")) {
+        if (!ValidationUtil.isDigits(patientId, 10)) {
             throw new IllegalArgumentException("ID10λ");
         }
 
@@ -127,19 +129,19 @@ public class Patient {
 
     /**
      * ֤
-     * ֤18λ֣֤ʵӦ֤Уλ
+     * ֤ǰ17λΪ֣18λΪУ루ֻX֤УλĩλСдxдX
      */
     public void setIdentityId(String identityId) {
         if (identityId == null || identityId.trim().isEmpty()) {
             throw new IllegalArgumentException("֤ŲΪ");
         }
 
-        // ֤ǷΪ18λ
-        if (!identityId.matches("\\d{18}")) {
-            throw new IllegalArgumentException("֤ű18λ");
+        // ֤18λʽУλ
+        if (!ValidationUtil.isIdentityId(identityId)) {
+            throw new IllegalArgumentException("֤ŸʽȷУλ");
         }
 
-        this.identityId = identityId;
+        this.identityId = ValidationUtil.normalizeIdentityId(identityId);
 
         // ֤żԱ𣨼򻯰棩
         calculateAgeFromIdentityId();
@@ -158,7 +160,7 @@ public class Patient {
         }
 
         // ֻ֤Ÿʽ֤
-        if (!phone.matches("1[3-9]\\d{9}")) {
+        if (!ValidationUtil.isMobilePhone(phone)) {
             throw new IllegalArgumentException("ֻŸʽȷ");
         }
 
@@ -175,9 +177,9 @@ public class Patient {
 
         try {
             // ȡգ֤7-14λʽyyyyMMdd
-            int birthYear = Integer.parseInt(identityId.substring(6, 10));
-            int birthMonth = Integer.parseInt(identityId.substring(10, 12));
-            int birthDay = Integer.parseInt(identityId.substring(12, 14));
+            int birthYear = ValidationUtil.parseDigits(identityId, 6, 10);
+            int birthMonth = ValidationUtil.parseDigits(identityId, 10, 12);
+            int birthDay = ValidationUtil.parseDigits(identityId, 12, 14);
 
             // ֱӴڶDateTimeExceptionԶЧڣ
             java.time.LocalDate birthDate = java.time.LocalDate.of(birthYear, birthMonth, birthDay);
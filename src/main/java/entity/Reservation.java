@@ -1,5 +1,7 @@
 package main.java.entity;
 
+import main.java.util.ValidationUtil;
+
 import java.time.LocalDateTime;
 
 /**
@@ -49,6 +51,26 @@ public class Reservation {
         setReservationTime(reservationTime);
     }
 
+    /**
+     * ݿ¼ԭԤԼ
+     * ʷԤԼԤԼʱѾȥԤԼʱ䲻ǹȥʱ䡱У飬ֶճУ
+     */
+    public Reservation(String reservationId, String patientId, String doctorId, LocalDateTime reservationTime,
+            String status, LocalDateTime createTime, LocalDateTime cancelTime, LocalDateTime completeTime) {
+        if (reservationTime == null) {
+            throw new IllegalArgumentException("ԤԼʱ䲻Ϊ");
+        }
+        setReservationId(reservationId);
+        setPatientId(patientId);
+        setDoctorId(doctorId);
+        this.reservationTime = reservationTime;
+        setCreateTime(createTime);
+        // Ȼԭȡ/ʱ䣬setStatusõǰʱ串
+        setCancelTime(cancelTime);
+        setCompleteTime(completeTime);
+        setStatus(status);
+    }
+
     // Getter
     public String getReservationId() {
         return reservationId;
@@ -94,7 +116,7 @@ public class Reservation {
         }
 
         // ֤ǷΪ12λ
-        if (!reservationId.matches("\\d{12}")) {
+        if (!ValidationUtil.isDigits(reservationId, 12)) {
             throw new IllegalArgumentException("ԤԼű12λ");
         }
 
@@ -111,7 +133,7 @@ public class Reservation {
         }
 
         // ֤ǷΪ10λ
-        if (!patientId.matches("\\d{10}")) {
+        if (!ValidationUtil.isDigits(patientId, 10)) {
             throw new IllegalArgumentException("ID10λ");
         }
 
@@ -128,7 +150,7 @@ public class Reservation {
         }
 
         // ֤ǷΪ8λ
-        if (!doctorId.matches("\\d{8}")) {
+        if (!ValidationUtil.isDigits(doctorId, 8)) {
             throw new IllegalArgumentException("ҽID8λ");
         }
 
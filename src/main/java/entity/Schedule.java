@@ -1,7 +1,10 @@
 package main.java.entity;
 
+import main.java.util.ValidationUtil;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Űʵ
@@ -27,13 +30,13 @@ public class Schedule {
     private String timeSlot;
 
     // ԤԼ
-    private int availableSlots;
+    private volatile int availableSlots;
 
-    // ԤԼ
-    private int bookedSlots;
+    // ԤԼCASԤԼҲᳬ
+    private final AtomicInteger bookedSlots = new AtomicInteger();
 
-    // ״̬ͣȣ
-    private String status;
+    // ֶõ״̬ͣΪnullʱ״̬ԤԼʵʱƵ/
+    private volatile String status;
 
     // ʱͳ
     public static final String MORNING = "";
@@ -48,8 +51,7 @@ public class Schedule {
     // 캯
     public Schedule() {
         this.availableSlots = 10; // Ĭ10Դ
-        this.bookedSlots = 0;
-        this.status = STATUS_NORMAL;
+        this.status = null; // ʼ״̬ɺԴƵ
     }
 
     public Schedule(String doctorId, LocalDate scheduleDate,
@@ -62,6 +64,31 @@ public class Schedule {
         setTimeSlot(timeSlot);
     }
 
+    /**
+     * ݿ¼ԭŰ
+     * ʷŰڿѾȥŰڲǹȥڡУ飬ֶճУ
+     */
+    public Schedule(String scheduleId, String doctorId, LocalDate scheduleDate,
+            LocalTime startTime, LocalTime endTime, String timeSlot,
+            int availableSlots, int bookedSlots, String status) {
+        this();
+        if (scheduleDate == null) {
+            throw new IllegalArgumentException("ŰڲΪ");
+        }
+        setScheduleId(scheduleId);
+        setDoctorId(doctorId);
+        this.scheduleDate = scheduleDate;
+        setStartTime(startTime);
+        setEndTime(endTime);
+        setTimeSlot(timeSlot);
+        setAvailableSlots(availableSlots);
+        setBookedSlots(bookedSlots);
+        // /ɺԴƵֶֻͣ״̬
+        if (status != null && !status.equals(STATUS_NORMAL) && !status.equals(STATUS_FULL)) {
+            setStatus(status);
+        }
+    }
+
     // Getter
     public String getScheduleId() {
         return scheduleId;
@@ -92,18 +119,26 @@ public class Schedule {
     }
 
     public int getBookedSlots() {
-        return bookedSlots;
+        return bookedSlots.get();
     }
 
+    /**
+     * ȡ״̬
+     * δֶ״̬ʱݵǰԤԼƵ֤Դһ
+     */
     public String getStatus() {
-        return status;
+        String manualStatus = status;
+        if (manualStatus != null) {
+            return manualStatus;
+        }
+        return bookedSlots.get() >= availableSlots ? STATUS_FULL : STATUS_NORMAL;
     }
 
     /**
      * ȡʣԴ
      */
     public int getRemainingSlots() {
-        return availableSlots - bookedSlots;
+        return availableSlots - bookedSlots.get();
     }
 
     // Setter֤
@@ -125,7 +160,7 @@ public class Schedule {
         }
 
         // ֤ǷΪ8λ
-        if (!doctorId.matches("\\d{8}")) {
+        if (!ValidationUtil.isDigits(doctorId, 8)) {
             throw new IllegalArgumentException("ҽID8λ");
         }
 
@@ -222,7 +257,7 @@ public class Schedule {
             throw new IllegalArgumentException("ԤԼܳԤԼ");
         }
 
-        this.bookedSlots = bookedSlots;
+        this.bookedSlots.set(bookedSlots);
         updateStatus();
     }
 
@@ -239,13 +274,17 @@ public class Schedule {
      * @return ǷԤԼɹ
      */
     public boolean bookSlot() {
-        if (bookedSlots >= availableSlots) {
-            return false;
+        // CASѭȼΪһԭӲԤԼᳬ
+        while (true) {
+            int booked = bookedSlots.get();
+            if (booked >= availableSlots) {
+                return false;
+            }
+            if (bookedSlots.compareAndSet(booked, booked + 1)) {
+                updateStatus();
+                return true;
+            }
         }
-
-        bookedSlots++;
-        updateStatus();
-        return true;
     }
 
     /**
@@ -254,25 +293,25 @@ public class Schedule {
      * @return Ƿȡɹ
      */
     public boolean cancelSlot() {
-        if (bookedSlots <= 0) {
-            return false;
+        while (true) {
+            int booked = bookedSlots.get();
+            if (booked <= 0) {
+                return false;
+            }
+            if (bookedSlots.compareAndSet(booked, booked - 1)) {
+                updateStatus();
+                return true;
+            }
         }
-
-        bookedSlots--;
-        updateStatus();
-        return true;
     }
 
     /**
      * ״̬
-     * ԤԼԶ״̬
+     * Դ仯ֶõ״̬˺getStatusԤԼƵ/
+     * ״̬д룬˲ԤԼ/ȡʱּ״̬һ
      */
     private void updateStatus() {
-        if (bookedSlots >= availableSlots) {
-            status = STATUS_FULL;
-        } else {
-            status = STATUS_NORMAL;
-        }
+        status = null;
     }
 
     @Override
@@ -283,9 +322,9 @@ public class Schedule {
                 ", scheduleDate=" + scheduleDate +
                 ", timeSlot='" + timeSlot + '\'' +
                 ", availableSlots=" + availableSlots +
-                ", bookedSlots=" + bookedSlots +
+                ", bookedSlots=" + getBookedSlots() +
                 ", remainingSlots=" + getRemainingSlots() +
-                ", status='" + status + '\'' +
+                ", status='" + getStatus() + '\'' +
                 '}';
     }
 }
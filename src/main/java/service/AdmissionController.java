@@ -0,0 +1,299 @@
+package main.java.service;
+
+import main.java.util.SQLMetrics.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ׼ƣҺݿ֮ǰ
+ * ÿһͰ̶ʲ䣬һͻûƵÿҵнȴУ
+ * ɺ̨߳ƲʱȺ˳УԤƵȴʱ䳬ʱܾԼ
+ * ӳأmaxActive=20maxWait=60룩ǰֻݿܼʱ󣬱ӳٿԤڣ
+ * ߷ʱʧܣgetConnection()ŶһӺʱ
+ */
+public class AdmissionController {
+
+    // Ĭÿÿе
+    public static final double DEFAULT_PERMITS_PER_SECOND = 50;
+
+    // ĬͰͻ
+    public static final int DEFAULT_BURST = 20;
+
+    // Ĭÿҵȴе󳤶
+    public static final int DEFAULT_MAX_QUEUE_LENGTH = 200;
+
+    // ĬŶʱ䣨룩ԤƳʱֱӾܾ
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 2000;
+
+    // ΪʱʹõͰ
+    private static final String DEFAULT_KEY = "";
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final int maxQueueLength;
+
+    private final long maxWaitNanos;
+
+    //  -> Ͱ
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    // ƲʱŶ߳
+    private final ScheduledExecutorService dispatcher;
+
+    private volatile boolean shutdown;
+
+    // ͳƣֱӷСŶӺСܾԼŶʱ
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder queuedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+    public AdmissionController() {
+        this(DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST, DEFAULT_MAX_QUEUE_LENGTH, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * @param permitsPerSecond ÿÿе
+     * @param burst            Ͱкͻ
+     * @param maxQueueLength   ÿҵȴе󳤶
+     * @param maxWaitMillis    Ŷʱ䣨룩ӦСӳصmaxWait
+     */
+    public AdmissionController(double permitsPerSecond, int burst, int maxQueueLength, long maxWaitMillis) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("ÿ0");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Ͱ0");
+        }
+        if (maxQueueLength < 0) {
+            throw new IllegalArgumentException("ȴгȲΪ");
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Ŷʱ䲻Ϊ");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxQueueLength = maxQueueLength;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "admission-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * ׼룺ʱɵĽŶӣƲ˳ɣ
+     * ԤƵȴʱAdmissionRejectedException
+     * ÷cancel()ŶеĽռ
+     * 
+     * @param deptName ƣΪnullʱʹùͰ
+     * @return ׼
+     */
+    public CompletableFuture<Void> admit(String deptName) {
+        if (shutdown) {
+            return closed();
+        }
+        String key = deptName == null ? DEFAULT_KEY : deptName;
+        return buckets.computeIfAbsent(key, k -> new Bucket()).admit();
+    }
+
+    /**
+     * ֹͣУIllegalStateExceptionŶе
+     * ùرձ־ͰͰȡУͰadmitͬһڼرձ־
+     * ر֮󵽴ֱӾܾ֮ǰӵ󶼻ᱻȡԶɵĽ
+     */
+    public void shutdown() {
+        shutdown = true;
+        dispatcher.shutdownNow();
+        for (Bucket bucket : buckets.values()) {
+            for (Waiting waiting : bucket.drainAll()) {
+                waiting.future.completeExceptionally(new IllegalStateException("׼ѹر"));
+            }
+        }
+    }
+
+    /**
+     * ҵǰŶе
+     */
+    public int getQueueLength(String deptName) {
+        Bucket bucket = buckets.get(deptName == null ? DEFAULT_KEY : deptName);
+        return bucket == null ? 0 : bucket.queueLength();
+    }
+
+    // ͳϢ
+    public long getAdmittedCount() {
+        return admittedCount.sum();
+    }
+
+    public long getQueuedCount() {
+        return queuedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * ŶӺ󱻷еŶʱ
+     */
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionController{" +
+                "permitsPerSecond=" + permitsPerSecond +
+                ", burst=" + burst +
+                ", admittedCount=" + getAdmittedCount() +
+                ", queuedCount=" + getQueuedCount() +
+                ", rejectedCount=" + getRejectedCount() +
+                ", queueLatency=[" + queueLatency + "]" +
+                '}';
+    }
+
+    // nƻȴʱ䣨룩
+    private long nanosUntil(double permitsNeeded) {
+        return permitsNeeded <= 0 ? 0 : (long) Math.ceil(permitsNeeded / permitsPerSecond * 1_000_000_000L);
+    }
+
+    private static CompletableFuture<Void> closed() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException("׼ѹر"));
+        return future;
+    }
+
+    private CompletableFuture<Void> reject(long retryAfterNanos) {
+        rejectedCount.increment();
+        long retryAfterMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(retryAfterNanos));
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(
+                new AdmissionRejectedException("ԤԼ࣬" + retryAfterMillis + "", retryAfterMillis));
+        return future;
+    }
+
+    /**
+     * һҵͰȴУ״̬Ͱ޸
+     */
+    private class Bucket {
+        private double tokens = burst;
+        private long lastRefillNanos = System.nanoTime();
+        private final Deque<Waiting> queue = new ArrayDeque<>();
+        private boolean dispatchScheduled;
+
+        CompletableFuture<Void> admit() {
+            synchronized (this) {
+                // Ͱ¼飺shutdown()ȡҲͨӵһᱻȡ
+                if (shutdown) {
+                    return closed();
+                }
+                long now = System.nanoTime();
+                refill(now);
+                if (queue.isEmpty() && tokens >= 1) {
+                    tokens -= 1;
+                    admittedCount.increment();
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                // ڱ֮ǰҪһƣҪһ
+                int ahead = queue.size();
+                long waitNanos = nanosUntil(ahead + 1 - tokens);
+                if (ahead >= maxQueueLength) {
+                    // ҪһŻпλ
+                    return reject(nanosUntil(ahead - maxQueueLength + 1 - tokens));
+                }
+                if (waitNanos > maxWaitNanos) {
+                    // ٹôãŶʱŻص
+                    return reject(waitNanos - maxWaitNanos);
+                }
+
+                Waiting waiting = new Waiting(now);
+                queue.addLast(waiting);
+                queuedCount.increment();
+                scheduleDispatch();
+                return waiting.future;
+            }
+        }
+
+        // ѲƵŶͰǵĽ
+        void dispatch() {
+            List<Waiting> released = new ArrayList<>();
+            synchronized (this) {
+                dispatchScheduled = false;
+                long now = System.nanoTime();
+                refill(now);
+                Waiting waiting;
+                while (tokens >= 1 && (waiting = queue.pollFirst()) != null) {
+                    if (waiting.future.isDone()) {
+                        // ÷ȡ
+                        continue;
+                    }
+                    tokens -= 1;
+                    released.add(waiting);
+                }
+                if (!queue.isEmpty()) {
+                    scheduleDispatch();
+                }
+            }
+            long now = System.nanoTime();
+            for (Waiting waiting : released) {
+                if (waiting.future.complete(null)) {
+                    admittedCount.increment();
+                    queueLatency.record(now - waiting.enqueueNanos);
+                }
+            }
+        }
+
+        synchronized int queueLength() {
+            return queue.size();
+        }
+
+        synchronized List<Waiting> drainAll() {
+            List<Waiting> all = new ArrayList<>(queue);
+            queue.clear();
+            return all;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerSecond / 1_000_000_000L);
+            lastRefillNanos = now;
+        }
+
+        // һƲʱж
+        private void scheduleDispatch() {
+            if (dispatchScheduled || shutdown) {
+                return;
+            }
+            try {
+                dispatcher.schedule(this::dispatch, Math.max(nanosUntil(1 - tokens), 1), TimeUnit.NANOSECONDS);
+                dispatchScheduled = true;
+            } catch (RejectedExecutionException e) {
+                // رձ־̲֮߳űرգеshutdown()õͰȡ
+            }
+        }
+    }
+
+    // һŶе
+    private static class Waiting {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long enqueueNanos;
+
+        Waiting(long enqueueNanos) {
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package main.java.service;
+
+/**
+ * ׼ƾܾӦҵĵȴԤƵȴʱ䳬
+ * ÷ӦretryAfterMillis֮ԣ
+ */
+public class AdmissionRejectedException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Լ룩
+    private final long retryAfterMillis;
+
+    public AdmissionRejectedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,511 @@
+package main.java.service;
+
+import main.java.dao.DoctorDAO;
+import main.java.dao.DoctorDAOImpl;
+import main.java.dao.PatientDAO;
+import main.java.dao.PatientDAOImpl;
+import main.java.entity.Doctor;
+import main.java.entity.Patient;
+import main.java.util.SQLMetrics.LatencyHistogram;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ƾ֤񣺻ߡҽ¼УỰ
+ * ԼεPBKDF2HmacSHA256ɵ棬ʽΪ pbkdf2_sha256$$$ϣBase64
+ * еԿɵ¼УɹԶΪϣ
+ * ϣרõнִ̳߳УͬʱеУޣܾ
+ * ¼߷岻ռҺŵҵCPU¼ɹ󷢷ŶڻỰƣ֮ĵƾ֤ټϣ
+ */
+public class CredentialService {
+
+    // ĬPBKDF2
+    public static final int DEFAULT_ITERATIONS = 120_000;
+
+    // ĬϻỰЧڣ룩
+    public static final long DEFAULT_SESSION_TTL_MILLIS = 15 * 60 * 1000L;
+
+    // ϣʽǰ׺
+    private static final String HASH_PREFIX = "pbkdf2_sha256$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final int SALT_BYTES = 16;
+
+    private static final int KEY_BITS = 256;
+
+    // ỰֵʱڻỰ
+    private static final int SESSION_PURGE_THRESHOLD = 10_000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * ¼ɫ
+     */
+    public enum Role {
+        PATIENT, DOCTOR
+    }
+
+    /**
+     * ֤ĻỰ
+     */
+    public static class Session {
+        private final String token;
+        private final Role role;
+        private final String userId;
+        private final long expiresAtMillis;
+
+        Session(String token, Role role, String userId, long expiresAtMillis) {
+            this.token = token;
+            this.role = role;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public Role getRole() {
+            return role;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+
+    private final PatientDAO patientDAO;
+
+    private final DoctorDAO doctorDAO;
+
+    private final int iterations;
+
+    private final long sessionTtlMillis;
+
+    // ϣ̳߳أ߳ͬʱĹϣ
+    private final ThreadPoolExecutor executor;
+
+    // ͬʱУŶ + УУ
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    // ˺ŲʱУĹϣʹʱ˺ŴʱͬͨӦʱж˺Ƿ
+    private final String dummyHash;
+
+    // Ự -> Ự
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // ͳƣϣʱɹ/ʧ/ܾУỰ
+    private final LatencyHistogram hashLatency = new LatencyHistogram();
+    private final LongAdder verifiedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder sessionHitCount = new LongAdder();
+
+    public CredentialService() {
+        this(new PatientDAOImpl(), new DoctorDAOImpl());
+    }
+
+    public CredentialService(PatientDAO patientDAO, DoctorDAO doctorDAO) {
+        this(patientDAO, doctorDAO, DEFAULT_ITERATIONS,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 64, DEFAULT_SESSION_TTL_MILLIS);
+    }
+
+    /**
+     * @param patientDAO       DAO
+     * @param doctorDAO        ҽDAO
+     * @param iterations       PBKDF2ֻӰɵĹϣйϣ¼ĴУ飩
+     * @param hashThreads      ϣ߳鲻CPUһ룬ΪҺŵҵCPU
+     * @param maxInFlight      ͬʱУŶ + УУ
+     * @param sessionTtlMillis ỰЧڣ룩
+     */
+    public CredentialService(PatientDAO patientDAO, DoctorDAO doctorDAO, int iterations, int hashThreads,
+            int maxInFlight, long sessionTtlMillis) {
+        if (patientDAO == null || doctorDAO == null) {
+            throw new IllegalArgumentException("DAOΪ");
+        }
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("0");
+        }
+        if (hashThreads <= 0) {
+            throw new IllegalArgumentException("ϣ߳0");
+        }
+        if (maxInFlight < hashThreads) {
+            throw new IllegalArgumentException("У޲Сڹϣ߳");
+        }
+        if (sessionTtlMillis <= 0) {
+            throw new IllegalArgumentException("ỰЧڱ0");
+        }
+        this.patientDAO = patientDAO;
+        this.doctorDAO = doctorDAO;
+        this.iterations = iterations;
+        this.sessionTtlMillis = sessionTtlMillis;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Уޣź̳߳رܾ
+        this.executor = new ThreadPoolExecutor(hashThreads, hashThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxInFlight), r -> {
+                    Thread thread = new Thread(r, "credential-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dummyHash = computeHash("dummy-password", newSalt(), iterations);
+    }
+
+    /**
+     * ߵ¼
+     * 
+     * @param patientId ID
+     * @param password  
+     * @return Ự
+     * @throws Exception ˺ŻIllegalArgumentExceptionУ౻ܾAdmissionRejectedException
+     *                   ݿ쳣
+     */
+    public Session loginPatient(String patientId, String password) throws Exception {
+        Patient patient = patientId == null ? null : patientDAO.getById(patientId);
+        String stored = patient == null ? null : patient.getPassword();
+        if (!checkPassword(stored, password)) {
+            throw new IllegalArgumentException("˺Ż");
+        }
+        if (!isHashed(stored)) {
+            patient.setPassword(hashPassword(password));
+            patientDAO.update(patient);
+        }
+        return createSession(Role.PATIENT, patientId);
+    }
+
+    /**
+     * ҽ¼
+     * 
+     * @param doctorId ҽID
+     * @param password 
+     * @return Ự
+     * @throws Exception ˺ŻIllegalArgumentExceptionУ౻ܾAdmissionRejectedException
+     *                   ݿ쳣
+     */
+    public Session loginDoctor(String doctorId, String password) throws Exception {
+        Doctor doctor = doctorId == null ? null : doctorDAO.getById(doctorId);
+        String stored = doctor == null ? null : doctor.getPassword();
+        if (!checkPassword(stored, password)) {
+            throw new IllegalArgumentException("˺Ż");
+        }
+        if (!isHashed(stored)) {
+            doctor.setPassword(hashPassword(password));
+            doctorDAO.update(doctor);
+        }
+        return createSession(Role.DOCTOR, doctorId);
+    }
+
+    /**
+     * ƾ֤ϣ
+     * 
+     * @param token Ự
+     * @return ỰƲڻѹʱnull
+     */
+    public Session authenticate(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= session.expiresAtMillis) {
+            sessions.remove(token, session);
+            return null;
+        }
+        sessionHitCount.increment();
+        return session;
+    }
+
+    /**
+     * עỰ
+     */
+    public void logout(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * ʹûȫỰʧЧ޸ã
+     */
+    public void invalidateSessions(Role role, String userId) {
+        sessions.values().removeIf(session -> session.role == role && session.userId.equals(userId));
+    }
+
+    /**
+     * Ĺϣעᡢ޸ʱãڹϣִ̳߳
+     * 
+     * @param password 
+     * @return ϣֱַӱ浽password
+     * @throws Exception У౻ܾAdmissionRejectedException
+     */
+    public String hashPassword(String password) throws Exception {
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("벻Ϊ");
+        }
+        return join(submit(() -> computeHash(password, newSalt(), iterations)));
+    }
+
+    /**
+     * Ĺϣ絼ڹϣ̳߳вִ
+     * ¼ͬʱȴǾܾͬʱϣ߳¼
+     * 
+     * @param passwords 
+     * @return passwordsһһӦĹϣ
+     * @throws Exception ΪգIllegalArgumentExceptionȴʱжϣInterruptedException
+     */
+    public List<String> hashPasswords(List<String> passwords) throws Exception {
+        for (String password : passwords) {
+            if (password == null || password.isEmpty()) {
+                throw new IllegalArgumentException("벻Ϊ");
+            }
+        }
+        Semaphore window = new Semaphore(executor.getMaximumPoolSize());
+        List<CompletableFuture<String>> futures = new ArrayList<>(passwords.size());
+        for (String password : passwords) {
+            window.acquire();
+            inFlight.acquire();
+            CompletableFuture<String> future = execute(() -> computeHash(password, newSalt(), iterations));
+            future.whenComplete((hash, e) -> window.release());
+            futures.add(future);
+        }
+        List<String> hashes = new ArrayList<>(futures.size());
+        for (CompletableFuture<String> future : futures) {
+            hashes.add(join(future));
+        }
+        return hashes;
+    }
+
+    /**
+     * 첽У룬ڹϣִ̳߳УͬʱеУѴʱAdmissionRejectedException
+     * 
+     * @param stored   루ϣеģ
+     * @param password У
+     * @return Ƿƥ
+     */
+    public CompletableFuture<Boolean> verifyAsync(String stored, String password) {
+        if (stored == null || password == null) {
+            // ȻһιϣʹʱУͬ
+            return submit(() -> {
+                verifyHash(dummyHash, password == null ? "" : password);
+                return false;
+            });
+        }
+        if (!isHashed(stored)) {
+            // е룺Ƚϣռùϣ߳
+            return CompletableFuture.completedFuture(MessageDigest.isEqual(
+                    stored.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8)));
+        }
+        return submit(() -> verifyHash(stored, password));
+    }
+
+    /**
+     * ǷΪɵĹϣΪе룩
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(HASH_PREFIX);
+    }
+
+    /**
+     * ֹͣϣ̳߳أύУ
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ͳϢ
+    public LatencyHistogram getHashLatency() {
+        return hashLatency;
+    }
+
+    public long getVerifiedCount() {
+        return verifiedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getSessionHitCount() {
+        return sessionHitCount.sum();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public String toString() {
+        return "CredentialService{" +
+                "iterations=" + iterations +
+                ", hashThreads=" + executor.getMaximumPoolSize() +
+                ", verifiedCount=" + getVerifiedCount() +
+                ", failedCount=" + getFailedCount() +
+                ", rejectedCount=" + getRejectedCount() +
+                ", sessionHitCount=" + getSessionHitCount() +
+                ", hashLatency=[" + hashLatency + "]" +
+                '}';
+    }
+
+    private boolean checkPassword(String stored, String password) throws Exception {
+        boolean matched = join(verifyAsync(stored, password));
+        if (matched) {
+            verifiedCount.increment();
+        } else {
+            failedCount.increment();
+        }
+        return matched;
+    }
+
+    private Session createSession(Role role, String userId) {
+        if (sessions.size() >= SESSION_PURGE_THRESHOLD) {
+            purgeExpiredSessions();
+        }
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Session session = new Session(token, role, userId, System.currentTimeMillis() + sessionTtlMillis);
+        sessions.put(token, session);
+        return session;
+    }
+
+    private void purgeExpiredSessions() {
+        long now = System.currentTimeMillis();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now >= iterator.next().expiresAtMillis) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // ڹϣִ̳߳УͬʱеУѴʱAdmissionRejectedException
+    private <T> CompletableFuture<T> submit(HashTask<T> task) {
+        if (!inFlight.tryAcquire()) {
+            rejectedCount.increment();
+            // ƽϣʱڽеУȫʱ
+            long meanMillis = Math.max(1, hashLatency.getMeanMicros() / 1000);
+            long retryAfterMillis = meanMillis * maxInFlight / executor.getMaximumPoolSize();
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new AdmissionRejectedException(
+                    "¼࣬" + retryAfterMillis + "", retryAfterMillis));
+            return future;
+        }
+        return execute(task);
+    }
+
+    // ȡڹϣִ̳߳Уʱ黹
+    private <T> CompletableFuture<T> execute(HashTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    future.complete(task.run());
+                } catch (Exception | Error e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    hashLatency.record(System.nanoTime() - start);
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] newSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return salt;
+    }
+
+    private static String computeHash(String password, byte[] salt, int iterations) {
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return HASH_PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    private static boolean verifyHash(String stored, String password) {
+        String[] parts = stored.substring(HASH_PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[0]);
+            Base64.Decoder decoder = Base64.getDecoder();
+            salt = decoder.decode(parts[1]);
+            expected = decoder.decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (storedIterations <= 0) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("ϣʧ", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // ڹϣִ̳߳е
+    private interface HashTask<T> {
+        T run() throws Exception;
+    }
+}
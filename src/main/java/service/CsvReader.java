@@ -0,0 +1,203 @@
+package main.java.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * ʽCSVȡRFC 4180ŷָ˫ŰΧֶοɺšУֶڵ˫д˫ţ
+ * FileChannel + ̶Сֽ/ַַʹ򡢲ж룬
+ * ڴռֻ뻺С͵¼йأļС޹
+ */
+class CsvReader implements Closeable {
+
+    // ĬϻСֽڣ
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // ֶε󳤶ȣַֹʽδպϣļļһֶ
+    static final int MAX_FIELD_LENGTH = 64 * 1024;
+
+    private static final int EOF = -1;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder field = new StringBuilder();
+
+    // ֽѶ / ѳˢ
+    private boolean endOfInput;
+    private boolean finished;
+
+    // ǰȡλڵкţ1ʼһ¼ʼк
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Path file, Charset charset) throws IOException {
+        this(file, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvReader(Path file, Charset charset, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.bytes.flip();
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.chars.flip();
+
+        // UTF-8ļͷBOM
+        try {
+            if (peek() == '\uFEFF') {
+                chars.get();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * ȡһ¼ֶηfieldsգ
+     * 
+     * @param fields ֶεбظʹã
+     * @return Ƿ¼ļʱfalse
+     * @throws IOException ȡʧܡʽ
+     */
+    boolean readRecord(List<String> fields) throws IOException {
+        fields.clear();
+        int c = next();
+        // 
+        while (c == '\r' || c == '\n') {
+            if (c == '\r' && peek() == '\n') {
+                next();
+            }
+            line++;
+            c = next();
+        }
+        if (c == EOF) {
+            return false;
+        }
+
+        recordLine = line;
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IOException("" + recordLine + "Уδպ");
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        next();
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                if (c == '\r' && peek() == '\n') {
+                    next();
+                }
+                if (c != EOF) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return true;
+            } else {
+                append((char) c);
+            }
+            c = next();
+        }
+    }
+
+    /**
+     * һreadRecordļ¼ʼк
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(char c) throws IOException {
+        if (field.length() >= MAX_FIELD_LENGTH) {
+            throw new IOException("" + recordLine + "Уֶγ" + MAX_FIELD_LENGTH + "ַ");
+        }
+        field.append(c);
+    }
+
+    private int next() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return chars.get();
+    }
+
+    private int peek() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return chars.get(chars.position());
+    }
+
+    // ȡһݵַʱַȫѣ
+    private boolean fill() throws IOException {
+        if (finished) {
+            return false;
+        }
+        chars.clear();
+        while (chars.position() == 0) {
+            if (endOfInput) {
+                checkResult(decoder.decode(bytes, chars, true));
+                checkResult(decoder.flush(chars));
+                finished = true;
+                break;
+            }
+            // ϴδֽڣַֽ߽ضʱ
+            bytes.compact();
+            int read = channel.read(bytes);
+            bytes.flip();
+            if (read < 0) {
+                endOfInput = true;
+                continue;
+            }
+            checkResult(decoder.decode(bytes, chars, false));
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    private void checkResult(CoderResult result) throws IOException {
+        if (result.isError()) {
+            try {
+                result.throwException();
+            } catch (IOException e) {
+                throw new IOException("" + line + "иַ", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package main.java.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ʽCSVдַд̶СĻٱ벢дFileChannel
+ * š˫Żеֶ˫ŰΧֶڵ˫д˫ţ¼CRLFβ
+ */
+class CsvWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+
+    CsvWriter(Path file, Charset charset) throws IOException {
+        this(file, charset, CsvReader.DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvWriter(Path file, Charset charset, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize * 4);
+    }
+
+    /**
+     * дһ¼nullֶдΪգ
+     * 
+     * @param fields ֶ
+     * @throws IOException дʧ
+     */
+    void writeRecord(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                put(',');
+            }
+            writeField(fields[i]);
+        }
+        put('\r');
+        put('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(true);
+            bytes.clear();
+            encoder.flush(bytes);
+            bytes.flip();
+            writeBytes();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            for (int i = 0; i < value.length(); i++) {
+                put(value.charAt(i));
+            }
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    private void put(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            drain(false);
+        }
+        chars.put(c);
+    }
+
+    // ַдļδʱضϵĴԣ´ٱ
+    private void drain(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            bytes.clear();
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            bytes.flip();
+            writeBytes();
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+        }
+        chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
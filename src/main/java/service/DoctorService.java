@@ -1 +1,134 @@
- 
+package main.java.service;
+
+import main.java.dao.DepartmentDAO;
+import main.java.dao.DoctorDAO;
+import main.java.dao.ScheduleDAO;
+import main.java.entity.Doctor;
+import main.java.util.IDGenerator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ҽҵ
+ * ЩҽкšҵҽڴеĿӳ䣬ʣԴŰĿԾѯݿ
+ * עʱ뾭CredentialServiceιϣдݿͿӳ䣨־գ¼CredentialServiceУ
+ */
+public class DoctorService {
+
+    // Ĭܣ
+    public static final int DEFAULT_BROWSE_DAYS = 14;
+
+    private final DoctorDAO doctorDAO;
+
+    private final DepartmentDAO departmentDAO;
+
+    private final ScheduleDAO scheduleDAO;
+
+    private final CredentialService credentialService;
+
+    public DoctorService(DoctorDAO doctorDAO, DepartmentDAO departmentDAO, ScheduleDAO scheduleDAO,
+            CredentialService credentialService) {
+        if (doctorDAO == null || departmentDAO == null || scheduleDAO == null || credentialService == null) {
+            throw new IllegalArgumentException("DAOƾ֤Ϊ");
+        }
+        this.doctorDAO = doctorDAO;
+        this.departmentDAO = departmentDAO;
+        this.scheduleDAO = scheduleDAO;
+        this.credentialService = credentialService;
+    }
+
+    /**
+     * עҽҽIDΪʱϵͳ䣬滻Ϊϣдݿ⣬ټ
+     * Ѵڣȼд룬ݿжûеҽ
+     * 
+     * @param doctor ҽͨsetterУ飩עɹеΪϣ
+     * @return עҽ
+     * @throws Exception ҲڣIllegalArgumentExceptionϣУ౻ܾAdmissionRejectedException
+     *                   ݿ쳣
+     */
+    public Doctor register(Doctor doctor) throws Exception {
+        if (doctor == null) {
+            throw new IllegalArgumentException("ҽΪ");
+        }
+        if (doctor.getDepartment() == null || departmentDAO.findByDeptName(doctor.getDepartment()) == null) {
+            throw new IllegalArgumentException("Ҳڣ" + doctor.getDepartment());
+        }
+        if (doctor.getDoctorId() == null) {
+            doctor.setDoctorId(IDGenerator.nextDoctorId());
+        }
+        doctor.setPassword(credentialService.hashPassword(doctor.getPassword()));
+        doctorDAO.add(doctor);
+        departmentDAO.addDoctorToDepartment(doctor.getDepartment(), doctor);
+        return doctor;
+    }
+
+    /**
+     * ҽ¼
+     * 
+     * @param doctorId ҽID
+     * @param password 
+     * @return Ự֮ĵƾỰ֤
+     * @throws Exception ˺ŻIllegalArgumentExceptionУ౻ܾAdmissionRejectedException
+     *                   ݿ쳣
+     */
+    public CredentialService.Session login(String doctorId, String password) throws Exception {
+        return credentialService.loginDoctor(doctorId, password);
+    }
+
+    /**
+     * ѯнʣԴҽ
+     * 
+     * @param deptName 
+     * @return ʣԴҽֿе˳
+     * @throws Exception Ծʱݿ쳣
+     */
+    public List<Doctor> findAvailableDoctors(String deptName) throws Exception {
+        LocalDate today = LocalDate.now();
+        return findAvailableDoctors(deptName, today, today.plusDays(DEFAULT_BROWSE_DAYS - 1));
+    }
+
+    /**
+     * ѯ[from, to]ʣԴҽ
+     * 
+     * @param deptName 
+     * @param from     ʼڣ
+     * @param to       ڣ
+     * @return ʣԴҽֿе˳
+     * @throws Exception Ծʱݿ쳣
+     */
+    public List<Doctor> findAvailableDoctors(String deptName, LocalDate from, LocalDate to) throws Exception {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("ڷΧЧ");
+        }
+        List<Doctor> doctors = new ArrayList<>(departmentDAO.getDoctorsInDepartment(deptName));
+        List<String> doctorIds = new ArrayList<>(doctors.size());
+        for (Doctor doctor : doctors) {
+            doctorIds.add(doctor.getDoctorId());
+        }
+        Set<String> available = new HashSet<>(scheduleDAO.findDoctorsWithFreeSlots(doctorIds, from, to));
+        List<Doctor> result = new ArrayList<>(available.size());
+        for (Doctor doctor : doctors) {
+            if (available.contains(doctor.getDoctorId())) {
+                result.add(doctor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ѯҽfromdaysÿʱεʣԴ
+     * 
+     * @param doctorId ҽID
+     * @param from     ʼ
+     * @param days     
+     * @return Ϊ days * 3 飬±Ϊ ƫ * 3 + ʱΣ012
+     * @throws Exception Ծʱݿ쳣
+     */
+    public int[] getRemainingSlots(String doctorId, LocalDate from, int days) throws Exception {
+        return scheduleDAO.getRemainingSlots(doctorId, from, days);
+    }
+}
@@ -1 +1,643 @@
- 
+package main.java.service;
+
+import main.java.dao.BatchResult;
+import main.java.dao.DepartmentDAO;
+import main.java.dao.DepartmentDAOImpl;
+import main.java.dao.DepartmentJournal;
+import main.java.dao.DoctorDAO;
+import main.java.dao.DoctorDAOImpl;
+import main.java.dao.PatientDAO;
+import main.java.dao.PatientDAOImpl;
+import main.java.dao.ReservationDAO;
+import main.java.dao.ReservationDAOImpl;
+import main.java.entity.Department;
+import main.java.entity.Doctor;
+import main.java.entity.Patient;
+import main.java.entity.Reservation;
+import main.java.util.IDGenerator;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * ļҵࣺҽCSVԤԼʷCSV
+ * дΪʽļ̶ͨСĻдʱÿһ飨chunkSizeУдݿⲢգ
+ * ʱͨαȡڴռļ޹
+ * ʱÿжʵsetterУ飬Уʧܻݿдʧܵм¼кԭ򣬲ӰУ
+ * 뾭CredentialServiceιϣд루ǹϣԭ絼뱾ϵͳ
+ * ÿȫֶУ飬ÿдǰٰĹϣһύϣ̳߳زм
+ * ṩڴ沿ݣżҽбĶƿգļһζдʱֱӻָҪɨݿ
+ * ϲŲ־DepartmentJournalʹʱʱȼؿطſ֮־
+ * ֮ÿдÿնѹ־־ֻο֮޸Ĵй
+ */
+public class FileOperateService {
+
+    // Ĭÿ鵼һһ
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    // ʱʽ
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // CSV
+    private static final String[] DOCTOR_COLUMNS = { "doctor_id", "name", "password", "department", "specialty" };
+    private static final String[] PATIENT_COLUMNS = { "patient_id", "name", "password", "identity_id", "phone" };
+    private static final String[] RESERVATION_COLUMNS = { "reservation_id", "patient_id", "doctor_id",
+            "reservation_time", "status", "create_time", "cancel_time", "complete_time" };
+
+    private final DoctorDAO doctorDAO;
+
+    private final PatientDAO patientDAO;
+
+    private final ReservationDAO reservationDAO;
+
+    private final DepartmentDAO departmentDAO;
+
+    private final CredentialService credentialService;
+
+    private final int chunkSize;
+
+    // дյ
+    private ScheduledExecutorService checkpointScheduler;
+
+    // лд־ѹ
+    private final Object snapshotLock = new Object();
+
+    // recoverDepartments򿪲ҽӵĲŲ־Լ֮׵Ŀļ
+    private DepartmentJournal departmentJournal;
+    private Path journalSnapshotFile;
+
+    public FileOperateService() {
+        this(new DoctorDAOImpl(), new PatientDAOImpl(), new ReservationDAOImpl(), new DepartmentDAOImpl(),
+                new CredentialService(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public FileOperateService(DoctorDAO doctorDAO, PatientDAO patientDAO, ReservationDAO reservationDAO,
+            DepartmentDAO departmentDAO, CredentialService credentialService, int chunkSize) {
+        if (doctorDAO == null || patientDAO == null || reservationDAO == null || departmentDAO == null) {
+            throw new IllegalArgumentException("DAOΪ");
+        }
+        if (credentialService == null) {
+            throw new IllegalArgumentException("ƾ֤Ϊ");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("ÿ0");
+        }
+        this.doctorDAO = doctorDAO;
+        this.patientDAO = patientDAO;
+        this.reservationDAO = reservationDAO;
+        this.departmentDAO = departmentDAO;
+        this.credentialService = credentialService;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * ҽUTF-8룩
+     * һΪͷnamepassworddepartmentΪУdoctor_idspecialtyѡdoctor_idΪʱϵͳ
+     * 
+     * @param file CSVļ
+     * @return 
+     * @throws Exception ļȡʧܻݿ쳣
+     */
+    public ImportResult importDoctors(Path file) throws Exception {
+        return importDoctors(file, StandardCharsets.UTF_8);
+    }
+
+    public ImportResult importDoctors(Path file, Charset charset) throws Exception {
+        return importCsv(file, charset, new String[] { "name", "password", "department" },
+                row -> {
+                    Doctor doctor = new Doctor();
+                    doctor.setName(row.get("name"));
+                    doctor.setPassword(row.get("password"));
+                    doctor.setDepartment(row.get("department"));
+                    String specialty = row.get("specialty");
+                    doctor.setSpecialty(specialty == null || specialty.isEmpty() ? null : specialty);
+                    String doctorId = row.get("doctor_id");
+                    doctor.setDoctorId(doctorId == null || doctorId.isEmpty() ? IDGenerator.nextDoctorId() : doctorId);
+                    return doctor;
+                },
+                (chunk, batchSize) -> {
+                    hashPasswords(chunk, Doctor::getPassword, Doctor::setPassword);
+                    return doctorDAO.addAll(chunk, batchSize);
+                });
+    }
+
+    /**
+     * 뻼UTF-8룩
+     * һΪͷnamepasswordidentity_idphoneΪУpatient_idѡΪʱϵͳ
+     * 
+     * @param file CSVļ
+     * @return 
+     * @throws Exception ļȡʧܻݿ쳣
+     */
+    public ImportResult importPatients(Path file) throws Exception {
+        return importPatients(file, StandardCharsets.UTF_8);
+    }
+
+    public ImportResult importPatients(Path file, Charset charset) throws Exception {
+        return importCsv(file, charset, new String[] { "name", "password", "identity_id", "phone" },
+                row -> {
+                    Patient patient = new Patient();
+                    patient.setName(row.get("name"));
+                    patient.setPassword(row.get("password"));
+                    patient.setIdentityId(row.get("identity_id"));
+                    patient.setPhone(row.get("phone"));
+                    String patientId = row.get("patient_id");
+                    patient.setPatientId(patientId == null || patientId.isEmpty()
+                            ? IDGenerator.nextPatientId() : patientId);
+                    return patient;
+                },
+                (chunk, batchSize) -> {
+                    hashPasswords(chunk, Patient::getPassword, Patient::setPassword);
+                    return patientDAO.addAll(chunk, batchSize);
+                });
+    }
+
+    /**
+     * [from, to)ڵԤԼ¼UTF-8룬ԤԼʱ򣬵һΪͷ
+     * 
+     * @param file ļѴʱǣ
+     * @param from ʼʱ䣨
+     * @param to   ʱ䣨
+     * @return 
+     * @throws Exception ļдʧܻݿ쳣
+     */
+    public long exportReservations(Path file, LocalDateTime from, LocalDateTime to) throws Exception {
+        long count = 0;
+        try (Stream<Reservation> reservations = reservationDAO.streamByTime(from, to);
+                CsvWriter writer = new CsvWriter(file, StandardCharsets.UTF_8)) {
+            writer.writeRecord(RESERVATION_COLUMNS);
+            Iterator<Reservation> iterator = reservations.iterator();
+            while (iterator.hasNext()) {
+                Reservation reservation = iterator.next();
+                writer.writeRecord(reservation.getReservationId(), reservation.getPatientId(),
+                        reservation.getDoctorId(), format(reservation.getReservationTime()),
+                        reservation.getStatus(), format(reservation.getCreateTime()),
+                        format(reservation.getCancelTime()), format(reservation.getCompleteTime()));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ҽ뵼ʽһ£ֱµ룩
+     * 
+     * @param file ļѴʱǣ
+     * @return 
+     * @throws Exception ļдʧܻݿ쳣
+     */
+    public long exportDoctors(Path file) throws Exception {
+        long count = 0;
+        try (Stream<Doctor> doctors = doctorDAO.streamAll();
+                CsvWriter writer = new CsvWriter(file, StandardCharsets.UTF_8)) {
+            writer.writeRecord(DOCTOR_COLUMNS);
+            Iterator<Doctor> iterator = doctors.iterator();
+            while (iterator.hasNext()) {
+                Doctor doctor = iterator.next();
+                writer.writeRecord(doctor.getDoctorId(), doctor.getName(), doctor.getPassword(),
+                        doctor.getDepartment(), doctor.getSpecialty());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 뵼ʽһ£ֱµ룩
+     * 
+     * @param file ļѴʱǣ
+     * @return 
+     * @throws Exception ļдʧܻݿ쳣
+     */
+    public long exportPatients(Path file) throws Exception {
+        long count = 0;
+        try (Stream<Patient> patients = patientDAO.streamAll();
+                CsvWriter writer = new CsvWriter(file, StandardCharsets.UTF_8)) {
+            writer.writeRecord(PATIENT_COLUMNS);
+            Iterator<Patient> iterator = patients.iterator();
+            while (iterator.hasNext()) {
+                Patient patient = iterator.next();
+                writer.writeRecord(patient.getPatientId(), patient.getName(), patient.getPassword(),
+                        patient.getIdentityId(), patient.getPhone());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ѵǰȫţҽбдļ
+     * дʱļԭ滻дбƻеĿ
+     * дrecoverDepartments׵Ŀļʱдɹѹ־
+     * 
+     * @param file ļ
+     * @return ļСֽڣ
+     * @throws IOException дʧ
+     */
+    public long writeSnapshot(Path file) throws IOException {
+        synchronized (snapshotLock) {
+            if (!(departmentDAO instanceof DepartmentDAOImpl)) {
+                return SnapshotFile.write(file, departmentDAO.findAll(), 0);
+            }
+            DepartmentDAOImpl.Checkpoint checkpoint = DepartmentDAOImpl.checkpoint();
+            long size = SnapshotFile.write(file, checkpoint.getDepartments(), checkpoint.getJournalSequence());
+            DepartmentJournal journal = departmentJournal;
+            if (journal != null && isJournalSnapshot(file)) {
+                // ̣Ųڼļ¼ҪѹǰʱطŻЩ¼
+                journal.compact(checkpoint.getJournalSequence());
+            }
+            return size;
+        }
+    }
+
+    /**
+     * ʱָݣؿգʱӿտʼطſ֮Ĳ־ٹҽ־¼޸
+     * ָҽ滻Ϊϣ־
+     * 
+     * @param snapshotFile        ļ֮дļʱѹ־
+     * @param journalFile         ־ļʱ
+     * @param fsyncIntervalMillis ־ˢڣ룩0ʾÿ޸Ķˢ̣
+     *                            ԽԽߣʱඪʧһڵ޸
+     * @return طŵ־¼
+     * @throws IOException ջ־ȡʧ
+     */
+    public long recoverDepartments(Path snapshotFile, Path journalFile, long fsyncIntervalMillis)
+            throws IOException {
+        if (snapshotFile == null || journalFile == null) {
+            throw new IllegalArgumentException("ļ־ļΪ");
+        }
+        if (!(departmentDAO instanceof DepartmentDAOImpl)) {
+            throw new IllegalStateException("Ų־֧DepartmentDAOImpl");
+        }
+        synchronized (snapshotLock) {
+            if (DepartmentDAOImpl.getJournal() != null) {
+                throw new IllegalStateException("Ų־ѹҽӣظָ");
+            }
+            long afterSequence = 0;
+            if (Files.exists(snapshotFile)) {
+                SnapshotFile.Content content = SnapshotFile.read(snapshotFile);
+                departmentDAO.replaceAll(content.getDepartments());
+                afterSequence = content.getJournalSequence();
+            } else {
+                departmentDAO.replaceAll(new ArrayList<>());
+            }
+
+            DepartmentJournal journal = DepartmentJournal.open(journalFile, fsyncIntervalMillis);
+            long replayed;
+            try {
+                journal.advanceSequenceTo(afterSequence);
+                replayed = DepartmentDAOImpl.replayJournal(journal, afterSequence);
+            } catch (IOException | RuntimeException e) {
+                journal.close();
+                throw e;
+            }
+            DepartmentDAOImpl.attachJournal(journal);
+            departmentJournal = journal;
+            journalSnapshotFile = snapshotFile.toAbsolutePath().normalize();
+            hashDepartmentPasswords();
+            return replayed;
+        }
+    }
+
+    /**
+     * д׵Ŀղѹ־
+     * 
+     * @return ļСֽڣ
+     * @throws IOException дʧ
+     */
+    public long compactDepartmentJournal() throws IOException {
+        Path file;
+        synchronized (snapshotLock) {
+            file = journalSnapshotFile;
+        }
+        if (file == null) {
+            throw new IllegalStateException("δָݣûпѹĲ־");
+        }
+        return writeSnapshot(file);
+    }
+
+    /**
+     * رղŲ־رǰˢ̣֮޸Ĳټ¼
+     * 
+     * @throws IOException ˢʧ
+     */
+    public void closeDepartmentJournal() throws IOException {
+        synchronized (snapshotLock) {
+            DepartmentJournal journal = departmentJournal;
+            if (journal == null) {
+                return;
+            }
+            DepartmentDAOImpl.attachJournal(null);
+            departmentJournal = null;
+            journalSnapshotFile = null;
+            journal.close();
+        }
+    }
+
+    private boolean isJournalSnapshot(Path file) {
+        return file.toAbsolutePath().normalize().equals(journalSnapshotFile);
+    }
+
+    /**
+     * ӿļָݣ滻ǰڴеȫ
+     * 
+     * @param file ļ
+     * @return ָĲ
+     * @throws IOException ļڡ汾ֻ֧Уʧܣʱڴݱֲ䣩
+     */
+    public int loadSnapshot(Path file) throws IOException {
+        List<Department> departments = SnapshotFile.read(file).getDepartments();
+        departmentDAO.replaceAll(departments);
+        hashDepartmentPasswords();
+        return departments.size();
+    }
+
+    /**
+     * ʼдգ㣩ʱֹͣɵ
+     * 
+     * @param file            ļ
+     * @param intervalSeconds ڣ룩
+     */
+    public synchronized void startCheckpoint(Path file, long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("ڱ0");
+        }
+        stopCheckpoint();
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * ֹͣд
+     */
+    public synchronized void stopCheckpoint() {
+        if (checkpointScheduler != null) {
+            // ждĿ
+            checkpointScheduler.shutdown();
+            checkpointScheduler = null;
+        }
+    }
+
+    /**
+     * ѿӳΪĵҽ루ɰ汾дĿջ־滻Ϊϣ滻ʱ滻һβ־
+     * ˺дĿա־в
+     * ڻָʱãʱûвĿ޸
+     */
+    private void hashDepartmentPasswords() throws IOException {
+        List<Department> departments = departmentDAO.findAll();
+        List<Doctor> plain = new ArrayList<>();
+        for (Department department : departments) {
+            for (Doctor doctor : department.getDoctorList()) {
+                String password = doctor.getPassword();
+                if (password != null && !CredentialService.isHashed(password)) {
+                    plain.add(doctor);
+                }
+            }
+        }
+        if (plain.isEmpty()) {
+            return;
+        }
+
+        // Ƴϣҽ滻޸ʹеĶ
+        List<Doctor> hashed = new ArrayList<>(plain.size());
+        for (Doctor doctor : plain) {
+            Doctor copy = new Doctor(doctor.getName(), doctor.getPassword(), doctor.getDepartment(),
+                    doctor.getSpecialty());
+            if (doctor.getDoctorId() != null) {
+                copy.setDoctorId(doctor.getDoctorId());
+            }
+            hashed.add(copy);
+        }
+        try {
+            hashPasswords(hashed, Doctor::getPassword, Doctor::setPassword);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("ҽϣʧ", e);
+        }
+
+        Map<Doctor, Doctor> replacements = new IdentityHashMap<>();
+        for (int i = 0; i < plain.size(); i++) {
+            replacements.put(plain.get(i), hashed.get(i));
+        }
+        List<Department> replacement = new ArrayList<>(departments.size());
+        for (Department department : departments) {
+            Department copy = new Department();
+            copy.setDeptName(department.getDeptName());
+            for (Doctor doctor : department.getDoctorList()) {
+                copy.addDoctor(replacements.getOrDefault(doctor, doctor));
+            }
+            replacement.add(copy);
+        }
+        departmentDAO.replaceAll(replacement);
+    }
+
+    /**
+     * һе滻Ϊϣǹϣıֲ䣬絼뱾ϵͳͬһ飩
+     * Ĺϣһύϣ̳߳زм㣻ʱͨȫֶУ飬Уʧܵвռùϣ
+     */
+    private <T> void hashPasswords(List<T> items, Function<T, String> getter, BiConsumer<T, String> setter)
+            throws Exception {
+        List<T> plain = new ArrayList<>();
+        List<String> passwords = new ArrayList<>();
+        for (T item : items) {
+            String password = getter.apply(item);
+            if (!CredentialService.isHashed(password)) {
+                plain.add(item);
+                passwords.add(password);
+            }
+        }
+        if (plain.isEmpty()) {
+            return;
+        }
+        List<String> hashes = credentialService.hashPasswords(passwords);
+        for (int i = 0; i < plain.size(); i++) {
+            setter.accept(plain.get(i), hashes.get(i));
+        }
+    }
+
+    /**
+     * ͨọ̃ͷ -> нУ -> д
+     */
+    private <T> ImportResult importCsv(Path file, Charset charset, String[] requiredColumns,
+            RowParser<T> parser, ChunkWriter<T> writer) throws Exception {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        List<String> fields = new ArrayList<>();
+
+        try (CsvReader reader = new CsvReader(file, charset)) {
+            if (!reader.readRecord(fields)) {
+                throw new IOException("ļΪգȱٱͷ");
+            }
+            Row row = new Row(fields);
+            for (String column : requiredColumns) {
+                if (!row.hasColumn(column)) {
+                    throw new IOException("ͷȱٱУ" + column);
+                }
+            }
+
+            List<T> chunk = new ArrayList<>(chunkSize);
+            List<Long> chunkLines = new ArrayList<>(chunkSize);
+            while (reader.readRecord(fields)) {
+                result.addRow();
+                long line = reader.getRecordLine();
+                T item;
+                try {
+                    item = parser.parse(row);
+                } catch (IllegalArgumentException e) {
+                    result.addFailure(line, e.getMessage());
+                    continue;
+                }
+                chunk.add(item);
+                chunkLines.add(line);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, chunkLines, writer, result);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, chunkLines, writer, result);
+            }
+        } finally {
+            result.setElapsedNanos(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * дһݣдһʧʱعʱȥʧкУǰδִеУд룬
+     * ֱύɹнչ
+     * rewriteBatchedStatementsʱһдΪֵINSERTһгʱжΪʧԭͬ
+     * ޷ֱʧܵУʱÿ1ִһΣҳʧܵкٰԭСд
+     */
+    private <T> void writeChunk(List<T> chunk, List<Long> chunkLines, ChunkWriter<T> writer,
+            ImportResult result) throws Exception {
+        List<T> pending = chunk;
+        List<Long> pendingLines = chunkLines;
+        int batchSize = chunkSize;
+        while (!pending.isEmpty()) {
+            BatchResult batch = writer.write(pending, batchSize);
+            if (batch.isCommitted()) {
+                result.addImported(batch.getSuccessCount());
+                break;
+            }
+            if (batchSize > 1 && isIndistinctFailure(batch)) {
+                batchSize = 1;
+                continue;
+            }
+            batchSize = chunkSize;
+
+            List<T> retry = new ArrayList<>(pending.size());
+            List<Long> retryLines = new ArrayList<>(pending.size());
+            Map<Integer, String> failures = batch.getFailures();
+            for (int i = 0; i < pending.size(); i++) {
+                String reason = failures.get(i);
+                if (reason == null || batch.isNotExecuted(i)) {
+                    retry.add(pending.get(i));
+                    retryLines.add(pendingLines.get(i));
+                } else {
+                    result.addFailure(pendingLines.get(i), reason);
+                }
+            }
+            if (retry.size() == pending.size()) {
+                // ûпȥʧУҲɹ
+                for (int i = 0; i < retry.size(); i++) {
+                    String reason = failures.get(i);
+                    result.addFailure(retryLines.get(i), reason == null ? "ͬдʧܣѻع" : reason);
+                }
+                break;
+            }
+            pending = retry;
+            pendingLines = retryLines;
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    // ʧԭȫͬǸдĶֵʧܣЩи
+    private static boolean isIndistinctFailure(BatchResult batch) {
+        String first = null;
+        int count = 0;
+        for (Map.Entry<Integer, String> failure : batch.getFailures().entrySet()) {
+            if (batch.isNotExecuted(failure.getKey())) {
+                continue;
+            }
+            if (count == 0) {
+                first = failure.getValue();
+            } else if (!Objects.equals(first, failure.getValue())) {
+                return false;
+            }
+            count++;
+        }
+        return count > 1;
+    }
+
+    private static String format(LocalDateTime time) {
+        return time == null ? null : TIME_FORMAT.format(time);
+    }
+
+    /**
+     * ǰ¼İͼͷڴʱһΣ֮ÿֻ±ȡֵ
+     */
+    private static class Row {
+        private final Map<String, Integer> columnIndex = new HashMap<>();
+        private final List<String> fields;
+
+        Row(List<String> fields) {
+            for (int i = 0; i < fields.size(); i++) {
+                columnIndex.put(fields.get(i).trim().toLowerCase(), i);
+            }
+            this.fields = fields;
+        }
+
+        boolean hasColumn(String column) {
+            return columnIndex.containsKey(column);
+        }
+
+        // вڻֶʱnull
+        String get(String column) {
+            Integer index = columnIndex.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            return fields.get(index).trim();
+        }
+    }
+
+    // һнΪʵУʧʱ׳IllegalArgumentException
+    private interface RowParser<T> {
+        T parse(Row row) throws Exception;
+    }
+
+    // дһʵ
+    private interface ChunkWriter<T> {
+        BatchResult write(List<T> chunk, int batchSize) throws Exception;
+    }
+}
@@ -0,0 +1,88 @@
+package main.java.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CSV
+ * ¼ȡɹʧУļк -> ԭԼʱ뵼
+ */
+public class ImportResult {
+    // ȡͷ
+    private long rowCount;
+
+    // ɹдݿ
+    private long importedCount;
+
+    // ʧܵУļекţ1ʼͷΪ1У -> ʧԭ
+    private final Map<Long, String> failures = new LinkedHashMap<>();
+
+    // ʧйʱֻǰMAX_RECORDED_FAILURESֻ
+    private long failureCount;
+
+    // ʱ룩
+    private long elapsedNanos;
+
+    // ¼ʧ֤ļʱڴռòʧ
+    public static final int MAX_RECORDED_FAILURES = 1000;
+
+    // Getter
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public Map<Long, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * ʣÿȡ
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    // ·FileOperateService¼
+    void addRow() {
+        rowCount++;
+    }
+
+    void addImported(int count) {
+        importedCount += count;
+    }
+
+    void addFailure(long line, String reason) {
+        failureCount++;
+        if (failures.size() < MAX_RECORDED_FAILURES) {
+            failures.put(line, reason);
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowCount=" + rowCount +
+                ", importedCount=" + importedCount +
+                ", failureCount=" + failureCount +
+                ", elapsedMillis=" + getElapsedMillis() +
+                ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) +
+                '}';
+    }
+}
@@ -1 +1,69 @@
- 
+package main.java.service;
+
+import main.java.dao.PatientDAO;
+import main.java.dao.PatientDAOImpl;
+import main.java.entity.Patient;
+import main.java.util.IDGenerator;
+
+/**
+ * ҵע¼
+ * עʱ뾭CredentialServiceιϣд룬ݿвģ¼CredentialServiceУ벢ŻỰ
+ */
+public class PatientService {
+
+    private final PatientDAO patientDAO;
+
+    private final CredentialService credentialService;
+
+    public PatientService() {
+        this(new PatientDAOImpl(), new CredentialService());
+    }
+
+    public PatientService(PatientDAO patientDAO, CredentialService credentialService) {
+        if (patientDAO == null || credentialService == null) {
+            throw new IllegalArgumentException("DAOƾ֤Ϊ");
+        }
+        this.patientDAO = patientDAO;
+        this.credentialService = credentialService;
+    }
+
+    /**
+     * עỼߣIDΪʱϵͳ䣬滻Ϊϣд
+     * Ȳټϣظע᲻ռùϣ߳
+     * 
+     * @param patient ߶ͨsetterУ飩עɹеΪϣ
+     * @return עĻ߶
+     * @throws Exception ֤ŻֻעᣨIllegalArgumentException
+     *                   ϣУ౻ܾAdmissionRejectedExceptionݿ쳣
+     */
+    public Patient register(Patient patient) throws Exception {
+        if (patient == null) {
+            throw new IllegalArgumentException("߶Ϊ");
+        }
+        if (patientDAO.existsByIdentityId(patient.getIdentityId())) {
+            throw new IllegalArgumentException("֤ע᣺" + patient.getIdentityId());
+        }
+        if (patientDAO.existsByPhone(patient.getPhone())) {
+            throw new IllegalArgumentException("ֻע᣺" + patient.getPhone());
+        }
+        if (patient.getPatientId() == null) {
+            patient.setPatientId(IDGenerator.nextPatientId());
+        }
+        patient.setPassword(credentialService.hashPassword(patient.getPassword()));
+        patientDAO.add(patient);
+        return patient;
+    }
+
+    /**
+     * ߵ¼
+     * 
+     * @param patientId ID
+     * @param password  
+     * @return Ự֮ĵƾỰ֤
+     * @throws Exception ˺ŻIllegalArgumentExceptionУ౻ܾAdmissionRejectedException
+     *                   ݿ쳣
+     */
+    public CredentialService.Session login(String patientId, String password) throws Exception {
+        return credentialService.loginPatient(patientId, password);
+    }
+}
@@ -1 +1,663 @@
- 
+package main.java.service;
+
+import main.java.dao.DepartmentDAO;
+import main.java.dao.ReservationDAO;
+import main.java.dao.ReservationDAOImpl;
+import main.java.dao.ScheduleDAO;
+import main.java.dao.ScheduleDAOImpl;
+import main.java.entity.Department;
+import main.java.entity.Reservation;
+import main.java.entity.Schedule;
+import main.java.util.IDGenerator;
+import main.java.util.JDBCUtil;
+import main.java.util.SQLMetrics.LatencyHistogram;
+import main.java.util.UnitOfWork;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ԤԼҵࣺύgroup commitҺˮ
+ * ҺŰԵĶУɺ̨̳߳ȡһڵĺԴռԤԼͬһһύ
+ * Ű -> ʣԴʱͻþ -> һUPDATEռúԴ -> һexecuteBatchԤԼ -> ύ
+ * źŸ߷ʱͬһŰĴֻٵȴÿ÷ȻõԼĽ
+ * Դʱ߿ɼŰĺ򲹶УȡԤԼʱͬһڰѿճʱֱת׺򲹣
+ * Դͷ -> ռ򲹻跴ԣȺȵ
+ * ׼ƣAdmissionControllerʱȰŰٽŰ
+ */
+public class ReservationService {
+
+    // Ĭÿദ
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private final ScheduleDAO scheduleDAO;
+
+    private final ReservationDAO reservationDAO;
+
+    private final int maxBatchSize;
+
+    // ִ̳߳أͬһŰͬһʱֻһִУͬŰ֮䲢
+    private final ExecutorService executor;
+
+    // ŰID -> 
+    private final Map<String, ScheduleQueue> queues = new ConcurrentHashMap<>();
+
+    // ŰID -> 򲹶
+    private final Waitlist waitlist = new Waitlist();
+
+    // ׼ƣΪnullʱ
+    private final AdmissionController admissionController;
+
+    // ڰҽң׼Ƶάȣ
+    private final DepartmentDAO departmentDAO;
+
+    // ŰID -> ҽIDŰҽı䣬ȷҲҪٷݿ⣩
+    private final Map<String, String> scheduleDoctors = new ConcurrentHashMap<>();
+
+    private volatile boolean shutdown;
+
+    // ͳƣύ󵽵õĺʱɹ/ܾ
+    private final LatencyHistogram bookingLatency = new LatencyHistogram();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder bookedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder handedOffCount = new LongAdder();
+
+    public ReservationService() {
+        this(new ScheduleDAOImpl(), new ReservationDAOImpl(), DEFAULT_MAX_BATCH_SIZE,
+                Math.min(Runtime.getRuntime().availableProcessors(), getMaxWorkerThreads()));
+    }
+
+    /**
+     * ӳ߳
+     * ÿ߳ͬʱռӣԪ + IDGeneratorԤռŶεĶӣ
+     * ߳Сһ룬߳ͬʱȡŶʱӳпӣụȴʱ
+     * 
+     * @return ߳Ϊ1
+     */
+    public static int getMaxWorkerThreads() {
+        return Math.max(1, (JDBCUtil.getDataSource().getMaxActive() - 1) / 2);
+    }
+
+    /**
+     * @param scheduleDAO    ŰDAO
+     * @param reservationDAO ԤԼDAO
+     * @param maxBatchSize   ÿദΪ1˻ΪÿҺһڶԱӳ٣
+     * @param workerThreads  ߳ܳgetMaxWorkerThreads()
+     */
+    public ReservationService(ScheduleDAO scheduleDAO, ReservationDAO reservationDAO, int maxBatchSize,
+            int workerThreads) {
+        this(scheduleDAO, reservationDAO, null, null, maxBatchSize, workerThreads);
+    }
+
+    /**
+     * @param scheduleDAO         ŰDAO
+     * @param reservationDAO      ԤԼDAO
+     * @param departmentDAO       DAOҽңʹ׼ʱΪnull
+     * @param admissionController ׼ƣΪnullʱ
+     * @param maxBatchSize        ÿദ
+     * @param workerThreads       ߳ܳgetMaxWorkerThreads()
+     */
+    public ReservationService(ScheduleDAO scheduleDAO, ReservationDAO reservationDAO, DepartmentDAO departmentDAO,
+            AdmissionController admissionController, int maxBatchSize, int workerThreads) {
+        if (scheduleDAO == null || reservationDAO == null) {
+            throw new IllegalArgumentException("DAOΪ");
+        }
+        if (admissionController != null && departmentDAO == null) {
+            throw new IllegalArgumentException("ʹ׼ʱDAOΪ");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("ÿ0");
+        }
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("߳0");
+        }
+        int maxWorkerThreads = getMaxWorkerThreads();
+        if (workerThreads > maxWorkerThreads) {
+            throw new IllegalArgumentException("߳ܳ" + maxWorkerThreads + "Сӳһ룩");
+        }
+        this.scheduleDAO = scheduleDAO;
+        this.reservationDAO = reservationDAO;
+        this.maxBatchSize = maxBatchSize;
+        this.departmentDAO = departmentDAO;
+        this.admissionController = admissionController;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread thread = new Thread(r, "reservation-booking-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 첽ҺţŰкأɹʱõѱԤԼ
+     * Դͣʱ䲻ŰڻʱѱռʱIllegalStateException/IllegalArgumentException쳣
+     * ׼ƾܾʱAdmissionRejectedExceptionɣднԼ
+     * 
+     * @param patientId       ID
+     * @param scheduleId      ŰID
+     * @param reservationTime ԤԼʱ䣨ȷӣ
+     * @return ҺŽ
+     */
+    public CompletableFuture<Reservation> bookAsync(String patientId, String scheduleId,
+            LocalDateTime reservationTime) {
+        CompletableFuture<Reservation> future = new CompletableFuture<>();
+        if (shutdown) {
+            future.completeExceptionally(new IllegalStateException("Һŷѹر"));
+            return future;
+        }
+        if (scheduleId == null || scheduleId.trim().isEmpty()) {
+            future.completeExceptionally(new IllegalArgumentException("ŰIDΪ"));
+            return future;
+        }
+
+        LocalDateTime time = reservationTime == null ? null : reservationTime.truncatedTo(ChronoUnit.MINUTES);
+        if (admissionController == null) {
+            enqueue(new BookingRequest(patientId, time, future), scheduleId);
+            return future;
+        }
+
+        String deptName;
+        try {
+            deptName = departmentOf(scheduleId);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        admissionController.admit(deptName).whenComplete((admitted, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else if (shutdown) {
+                future.completeExceptionally(new IllegalStateException("Һŷѹر"));
+            } else {
+                // Ŷʱ䲻Һӳͳ
+                enqueue(new BookingRequest(patientId, time, future), scheduleId);
+            }
+        });
+        return future;
+    }
+
+    private void enqueue(BookingRequest request, String scheduleId) {
+        ScheduleQueue queue = queues.computeIfAbsent(scheduleId, key -> new ScheduleQueue());
+        queue.pending.add(request);
+        scheduleDrain(scheduleId, queue);
+    }
+
+    // ŰĿңŰ಻ʱ׳쳣ҽκοʱnullʹùͰ
+    private String departmentOf(String scheduleId) throws Exception {
+        String doctorId = scheduleDoctors.get(scheduleId);
+        if (doctorId == null) {
+            Schedule schedule = scheduleDAO.getById(scheduleId);
+            if (schedule == null) {
+                throw new IllegalArgumentException("Ű಻ڣ" + scheduleId);
+            }
+            doctorId = schedule.getDoctorId();
+            scheduleDoctors.put(scheduleId, doctorId);
+        }
+        Department department = departmentDAO.findByDoctorId(doctorId);
+        return department == null ? null : department.getDeptName();
+    }
+
+    /**
+     * ͬҺţȴbookAsyncĽ
+     * 
+     * @param patientId       ID
+     * @param scheduleId      ŰID
+     * @param reservationTime ԤԼʱ䣨ȷӣ
+     * @return ѱԤԼ
+     * @throws Exception Һűܾԭݿ쳣
+     */
+    public Reservation book(String patientId, String scheduleId, LocalDateTime reservationTime) throws Exception {
+        try {
+            Reservation reservation = bookAsync(patientId, scheduleId, reservationTime).join();
+            // ͬʱдǴص̣߳߳Ķͬ
+            JDBCUtil.markWrite();
+            return reservation;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Űĺ򲹶УںԴʱԤԼȡʱȺ˳ѿճʱת򲹻
+     * жϺԴӶŰڽУȡԤԼת⣬ֺԴͷŵڵȴ
+     * 
+     * @param patientId     ID
+     * @param scheduleId    ŰID
+     * @param timeoutMillis ȴʱ䣨룩ʱTimeoutException
+     * @return 򲹽תɹʱõѱԤԼ÷cancel()ȴ
+     * @throws Exception Ű಻ڡͣʣԴݿ쳣
+     */
+    public CompletableFuture<Reservation> joinWaitlist(String patientId, String scheduleId, long timeoutMillis)
+            throws Exception {
+        if (shutdown) {
+            throw new IllegalStateException("Һŷѹر");
+        }
+        if (patientId == null || patientId.trim().isEmpty()) {
+            throw new IllegalArgumentException("IDΪ");
+        }
+        if (scheduleId == null || scheduleId.trim().isEmpty()) {
+            throw new IllegalArgumentException("ŰIDΪ");
+        }
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("򲹵ȴʱ0");
+        }
+        return UnitOfWork.execute(() -> {
+            Schedule schedule = scheduleDAO.getByIdForUpdate(scheduleId);
+            if (schedule == null) {
+                throw new IllegalArgumentException("Ű಻ڣ" + scheduleId);
+            }
+            if (Schedule.STATUS_CANCELLED.equals(schedule.getStatus())) {
+                throw new IllegalStateException("Űͣ");
+            }
+            if (schedule.getRemainingSlots() > 0) {
+                throw new IllegalStateException("ʣԴֱӹҺ");
+            }
+            return waitlist.add(scheduleId, patientId, timeoutMillis).getFuture();
+        });
+    }
+
+    /**
+     * ȡԤԼкʱѸʱֱת׺򲹣ԤԼ䣩ͷźԴ
+     * ύŵõعʱ򲹻ص
+     * 
+     * @param scheduleId    ԤԼŰID
+     * @param reservationId ԤԼ
+     * @return ȡԤԼ
+     * @throws Exception ŰԤԼڡԤԼڸŰࡢ״̬ԤԼݿ쳣
+     */
+    public Reservation cancel(String scheduleId, String reservationId) throws Exception {
+        if (scheduleId == null || reservationId == null) {
+            throw new IllegalArgumentException("ŰIDԤԼŲΪ");
+        }
+        List<Waitlist.Waiter> claimed = new ArrayList<>(1);
+        HandOff handOff;
+        try {
+            handOff = UnitOfWork.execute(() -> cancelInTransaction(scheduleId, reservationId, claimed));
+        } catch (Exception e) {
+            for (Waitlist.Waiter waiter : claimed) {
+                waitlist.unclaim(scheduleId, waiter);
+            }
+            throw e;
+        }
+
+        JDBCUtil.markWrite(handOff.cancelled.getPatientId());
+        if (handOff.waiter != null) {
+            JDBCUtil.markWrite(handOff.next.getPatientId());
+            handedOffCount.increment();
+            if (!handOff.waiter.getFuture().complete(handOff.next)) {
+                // תз˵ȴȡתȥԤԼʱתһλ
+                try {
+                    cancel(scheduleId, handOff.next.getReservationId());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return handOff.cancelled;
+    }
+
+    /**
+     * һȡԤԼתŰ -> У鲢ȡԤԼ -> ȡ׺򲹲ԤԼͷźԴ
+     */
+    private HandOff cancelInTransaction(String scheduleId, String reservationId, List<Waitlist.Waiter> claimed)
+            throws Exception {
+        Schedule schedule = scheduleDAO.getByIdForUpdate(scheduleId);
+        if (schedule == null) {
+            throw new IllegalArgumentException("Ű಻ڣ" + scheduleId);
+        }
+        Reservation reservation = reservationDAO.getById(reservationId);
+        if (reservation == null) {
+            throw new IllegalArgumentException("ԤԼڣ" + reservationId);
+        }
+        LocalDateTime time = reservation.getReservationTime();
+        if (!schedule.getDoctorId().equals(reservation.getDoctorId()) || !inSchedule(schedule, time)) {
+            throw new IllegalArgumentException("ԤԼڸŰ");
+        }
+        if (!Reservation.STATUS_BOOKED.equals(reservation.getStatus())) {
+            throw new IllegalStateException("ֻȡԤԼ״̬ԤԼ");
+        }
+        reservation.cancel();
+        reservationDAO.updateStatus(reservation);
+
+        // ͣʱѹʱת
+        if (!Schedule.STATUS_CANCELLED.equals(schedule.getStatus()) && time.isAfter(LocalDateTime.now())) {
+            Waitlist.Waiter waiter;
+            while ((waiter = waitlist.claimNext(scheduleId)) != null) {
+                Reservation next;
+                try {
+                    next = new Reservation(waiter.getPatientId(), schedule.getDoctorId(), time);
+                } catch (IllegalArgumentException e) {
+                    waiter.getFuture().completeExceptionally(e);
+                    continue;
+                }
+                claimed.add(waiter);
+                next.setReservationId(IDGenerator.nextReservationId());
+                reservationDAO.add(next);
+                return new HandOff(reservation, waiter, next);
+            }
+        }
+        scheduleDAO.releaseSlot(scheduleId);
+        return new HandOff(reservation, null, null);
+    }
+
+    /**
+     * Ű൱ǰȴеĺ
+     */
+    public int getWaitlistSize(String scheduleId) {
+        return waitlist.size(scheduleId);
+    }
+
+    /**
+     * ֹͣ󣬵ȴӵϺر̳߳
+     * 
+     * @param timeoutMillis ȴʱ䣨룩
+     * @return Ƿڳʱǰ
+     * @throws InterruptedException ȴж
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        shutdown = true;
+        waitlist.failAll(new IllegalStateException("Һŷѹر"));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        // ӵ󻹿ܼύȵȶſٹر̳߳
+        while (!allQueuesIdle()) {
+            if (System.nanoTime() >= deadline) {
+                executor.shutdownNow();
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        executor.shutdown();
+        return executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    // Ű൱ǰûִУύһ
+    private void scheduleDrain(String scheduleId, ScheduleQueue queue) {
+        if (queue.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(scheduleId, queue));
+        }
+    }
+
+    // ȡһ󲢴ύŰҲлִ
+    private void drain(String scheduleId, ScheduleQueue queue) {
+        try {
+            List<BookingRequest> batch = new ArrayList<>(Math.min(maxBatchSize, 16));
+            BookingRequest request;
+            while (batch.size() < maxBatchSize && (request = queue.pending.poll()) != null) {
+                batch.add(request);
+            }
+            if (!batch.isEmpty()) {
+                processBatch(scheduleId, batch);
+            }
+        } finally {
+            queue.draining.set(false);
+            // ͷű־ټһΣ֮߳©
+            if (!queue.pending.isEmpty()) {
+                scheduleDrain(scheduleId, queue);
+            }
+        }
+    }
+
+    private void processBatch(String scheduleId, List<BookingRequest> batch) {
+        batchCount.increment();
+        List<Granted> granted;
+        try {
+            granted = UnitOfWork.execute(() -> bookInTransaction(scheduleId, batch));
+        } catch (Exception e) {
+            if (batch.size() > 1) {
+                // ʧܣĳһΥuk_doctor_active_timeΨһԼʱԣһͬ
+                for (BookingRequest request : batch) {
+                    processBatch(scheduleId, Collections.singletonList(request));
+                }
+            } else {
+                reject(batch.get(0), e);
+            }
+            return;
+        }
+
+        for (Granted result : granted) {
+            if (result.failure == null) {
+                // д뷢ڹ߳ϣ߱дڣ÷ѯԼԤԼʱ
+                JDBCUtil.markWrite(result.reservation.getPatientId());
+                bookedCount.increment();
+                bookingLatency.record(System.nanoTime() - result.request.enqueueNanos);
+                result.request.future.complete(result.reservation);
+            } else {
+                reject(result.request, result.failure);
+            }
+        }
+    }
+
+    /**
+     * һڴһŰ -> þ -> ռúԴ -> ԤԼ
+     * þύɹ֪ͨ÷
+     */
+    private List<Granted> bookInTransaction(String scheduleId, List<BookingRequest> batch) throws Exception {
+        List<Granted> results = new ArrayList<>(batch.size());
+        Schedule schedule = scheduleDAO.getByIdForUpdate(scheduleId);
+        if (schedule == null) {
+            for (BookingRequest request : batch) {
+                results.add(new Granted(request, null, new IllegalArgumentException("Ű಻ڣ" + scheduleId)));
+            }
+            return results;
+        }
+
+        int remaining = Schedule.STATUS_CANCELLED.equals(schedule.getStatus()) ? 0
+                : schedule.getAvailableSlots() - schedule.getBookedSlots();
+        Set<LocalTime> takenInBatch = new HashSet<>();
+        Set<LocalDateTime> takenOnPrimary = loadTakenTimes(schedule, batch);
+        List<Reservation> reservations = new ArrayList<>();
+
+        for (BookingRequest request : batch) {
+            Exception failure = check(schedule, request, remaining, takenInBatch, takenOnPrimary);
+            if (failure != null) {
+                results.add(new Granted(request, null, failure));
+                continue;
+            }
+            Reservation reservation;
+            try {
+                reservation = new Reservation(request.patientId, schedule.getDoctorId(), request.reservationTime);
+            } catch (IllegalArgumentException e) {
+                results.add(new Granted(request, null, e));
+                continue;
+            }
+            reservation.setReservationId(IDGenerator.nextReservationId());
+            reservations.add(reservation);
+            takenInBatch.add(request.reservationTime.toLocalTime());
+            remaining--;
+            results.add(new Granted(request, reservation, null));
+        }
+
+        if (!reservations.isEmpty()) {
+            // ŰʣԴᱻı䣻UPDATEԱУ飬ֹ뵥tryBookSlotʱ
+            if (!scheduleDAO.tryBookSlots(scheduleId, reservations.size())) {
+                throw new IllegalStateException("Դռʧܣ" + scheduleId);
+            }
+            reservationDAO.addAll(reservations);
+        }
+        return results;
+    }
+
+    /**
+     * Űڴѯʱ䷶Χѱռõʱ
+     * ֻӳ̵д룬̣غƹ̵д룩ռõʱΪ׼
+     */
+    private Set<LocalDateTime> loadTakenTimes(Schedule schedule, List<BookingRequest> batch) throws Exception {
+        LocalDateTime min = null;
+        LocalDateTime max = null;
+        for (BookingRequest request : batch) {
+            LocalDateTime time = request.reservationTime;
+            if (time == null || !inSchedule(schedule, time)) {
+                continue;
+            }
+            if (min == null || time.isBefore(min)) {
+                min = time;
+            }
+            if (max == null || time.isAfter(max)) {
+                max = time;
+            }
+        }
+        if (min == null) {
+            return Collections.emptySet();
+        }
+        return reservationDAO.getTakenTimesFromPrimary(schedule.getDoctorId(), min, max);
+    }
+
+    // þ󣬿ɹҺʱnull
+    private Exception check(Schedule schedule, BookingRequest request, int remaining,
+            Set<LocalTime> takenInBatch, Set<LocalDateTime> takenOnPrimary) throws Exception {
+        if (Schedule.STATUS_CANCELLED.equals(schedule.getStatus())) {
+            return new IllegalStateException("Űͣ");
+        }
+        if (remaining <= 0) {
+            return new IllegalStateException("Դ");
+        }
+        LocalDateTime time = request.reservationTime;
+        if (time == null) {
+            return new IllegalArgumentException("ԤԼʱ䲻Ϊ");
+        }
+        if (!inSchedule(schedule, time)) {
+            return new IllegalArgumentException("ԤԼʱ䲻Űʱ");
+        }
+        if (takenInBatch.contains(time.toLocalTime()) || takenOnPrimary.contains(time)
+                || reservationDAO.isTimeTaken(schedule.getDoctorId(), time)) {
+            return new IllegalStateException("ʱѱԤԼ");
+        }
+        return null;
+    }
+
+    // ʱǷŰʱ
+    private static boolean inSchedule(Schedule schedule, LocalDateTime time) {
+        LocalTime timeOfDay = time.toLocalTime();
+        return time.toLocalDate().equals(schedule.getScheduleDate())
+                && !timeOfDay.isBefore(schedule.getStartTime())
+                && timeOfDay.isBefore(schedule.getEndTime());
+    }
+
+    private void reject(BookingRequest request, Exception cause) {
+        rejectedCount.increment();
+        bookingLatency.record(System.nanoTime() - request.enqueueNanos);
+        request.future.completeExceptionally(cause);
+    }
+
+    private boolean allQueuesIdle() {
+        for (ScheduleQueue queue : queues.values()) {
+            if (queue.draining.get() || !queue.pending.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ͳϢ
+    public LatencyHistogram getBookingLatency() {
+        return bookingLatency;
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getBookedCount() {
+        return bookedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * ȡʱֱת򲹻ߵĴ
+     */
+    public long getHandedOffCount() {
+        return handedOffCount.sum();
+    }
+
+    /**
+     * ƽÿԽ˵ϲԽ֣
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : (double) (bookedCount.sum() + rejectedCount.sum()) / batches;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationService{" +
+                "maxBatchSize=" + maxBatchSize +
+                ", batchCount=" + getBatchCount() +
+                ", bookedCount=" + getBookedCount() +
+                ", rejectedCount=" + getRejectedCount() +
+                ", handedOffCount=" + getHandedOffCount() +
+                ", latency=[" + bookingLatency + "]" +
+                '}';
+    }
+
+    // һŰĴ + Ƿִ
+    private static class ScheduleQueue {
+        private final Queue<BookingRequest> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    // һҺ
+    private static class BookingRequest {
+        private final String patientId;
+        private final LocalDateTime reservationTime;
+        private final CompletableFuture<Reservation> future;
+        private final long enqueueNanos = System.nanoTime();
+
+        BookingRequest(String patientId, LocalDateTime reservationTime, CompletableFuture<Reservation> future) {
+            this.patientId = patientId;
+            this.reservationTime = reservationTime;
+            this.future = future;
+        }
+    }
+
+    // ȡתʱwaiternextǿգԴͷ
+    private static class HandOff {
+        private final Reservation cancelled;
+        private final Waitlist.Waiter waiter;
+        private final Reservation next;
+
+        HandOff(Reservation cancelled, Waitlist.Waiter waiter, Reservation next) {
+            this.cancelled = cancelled;
+            this.waiter = waiter;
+            this.next = next;
+        }
+    }
+
+    // Ĳþɹʱreservationǿգʧʱfailureǿ
+    private static class Granted {
+        private final BookingRequest request;
+        private final Reservation reservation;
+        private final Exception failure;
+
+        Granted(BookingRequest request, Reservation reservation, Exception failure) {
+            this.request = request;
+            this.reservation = reservation;
+            this.failure = failure;
+        }
+    }
+}
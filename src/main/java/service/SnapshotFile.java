@@ -0,0 +1,312 @@
+package main.java.service;
+
+import main.java.entity.Department;
+import main.java.entity.Doctor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * ڴݵĶƿļڶڻб룬ͨFileChannelһζд
+ * ʹڴӳ䣺JavaûͷӳĹӳҪȵGCղŽ
+ * WindowsԱӳļܱ滻ɾдʱļԭ滻Լ滻֮ǰĿգ
+ * AccessDeniedExceptionʧܣʱ޷
+ * 
+ * ļʽ򣩣
+ * ͷħ(int "FHSN") + 汾(short) + (short) + ʱ(long) + ֶ(int)
+ * ֶΣ(int) + (intֽ) + ݣȡʱʶķֶֶͣΣŰࣩҪ汾
+ * βCRC32(int)β֮ǰȫֽ
+ * ַ(intUTF-8ֽnullΪ-1) + UTF-8ֽ
+ * 
+ * ŷֶΣ1(int)ÿţ + ҽ(int) + ÿҽID롢ҡר
+ * ־λ÷ֶΣ2հһŲ־¼(long)ûи÷ֶεĿΪ0
+ */
+class SnapshotFile {
+
+    static final int MAGIC = 0x4648534E;
+
+    static final short VERSION = 1;
+
+    // ֶ
+    static final int SECTION_DEPARTMENTS = 1;
+    static final int SECTION_JOURNAL_POSITION = 2;
+
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 4;
+    private static final int SECTION_HEADER_SIZE = 4 + 4;
+    private static final int CHECKSUM_SIZE = 4;
+
+    /**
+     * 
+     */
+    static class Content {
+        private final long createTime;
+        private final List<Department> departments;
+        private final long journalSequence;
+
+        Content(long createTime, List<Department> departments, long journalSequence) {
+            this.createTime = createTime;
+            this.departments = departments;
+            this.journalSequence = journalSequence;
+        }
+
+        long getCreateTime() {
+            return createTime;
+        }
+
+        List<Department> getDepartments() {
+            return departments;
+        }
+
+        long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * дգдͬĿ¼µʱļˢ̣ԭ滻ĿļдһҲƻп
+     * 
+     * @param file            ļ
+     * @param departments     ţҽб
+     * @param journalSequence հһŲ־¼ţδʹ־ʱΪ0
+     * @return ļСֽڣ
+     * @throws IOException дʧ
+     */
+    static long write(Path file, Collection<Department> departments, long journalSequence) throws IOException {
+        // ȡҽбĿգͬһ
+        List<Department> deptList = new ArrayList<>(departments);
+        List<List<Doctor>> doctorLists = new ArrayList<>(deptList.size());
+        for (Department department : deptList) {
+            doctorLists.add(new ArrayList<>(department.getDoctorList()));
+        }
+
+        // һֻССһη仺
+        long sectionSize = 4;
+        for (int i = 0; i < deptList.size(); i++) {
+            sectionSize += sizeOf(deptList.get(i).getDeptName()) + 4;
+            for (Doctor doctor : doctorLists.get(i)) {
+                sectionSize += sizeOf(doctor.getDoctorId()) + sizeOf(doctor.getName())
+                        + sizeOf(doctor.getPassword()) + sizeOf(doctor.getDepartment())
+                        + sizeOf(doctor.getSpecialty());
+            }
+        }
+        long fileSize = HEADER_SIZE + SECTION_HEADER_SIZE + sectionSize + SECTION_HEADER_SIZE + 8 + CHECKSUM_SIZE;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("չ" + fileSize + "ֽ");
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+                CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+                buffer.putInt(MAGIC);
+                buffer.putShort(VERSION);
+                buffer.putShort((short) 0);
+                buffer.putLong(System.currentTimeMillis());
+                buffer.putInt(2);
+
+                buffer.putInt(SECTION_DEPARTMENTS);
+                buffer.putInt((int) sectionSize);
+                int sectionStart = buffer.position();
+                buffer.putInt(deptList.size());
+                for (int i = 0; i < deptList.size(); i++) {
+                    putString(buffer, encoder, deptList.get(i).getDeptName());
+                    List<Doctor> doctors = doctorLists.get(i);
+                    buffer.putInt(doctors.size());
+                    for (Doctor doctor : doctors) {
+                        putString(buffer, encoder, doctor.getDoctorId());
+                        putString(buffer, encoder, doctor.getName());
+                        putString(buffer, encoder, doctor.getPassword());
+                        putString(buffer, encoder, doctor.getDepartment());
+                        putString(buffer, encoder, doctor.getSpecialty());
+                    }
+                }
+                if (buffer.position() - sectionStart != sectionSize) {
+                    // СҽϢֱ޸
+                    throw new IOException("дڼҽϢ仯");
+                }
+
+                buffer.putInt(SECTION_JOURNAL_POSITION);
+                buffer.putInt(8);
+                buffer.putLong(journalSequence);
+
+                buffer.putInt((int) checksum(buffer, buffer.position()));
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return fileSize;
+    }
+
+    /**
+     * ȡգУħ汾CRC32ֶ
+     * 
+     * @param file ļ
+     * @return 
+     * @throws IOException ļڡʽУʧ
+     */
+    static Content read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + CHECKSUM_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("ļСȷ" + size + "ֽ");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("ļڶȡڼ䱻ض");
+                }
+            }
+            buffer.flip();
+
+            int bodySize = (int) size - CHECKSUM_SIZE;
+            int expected = buffer.getInt(bodySize);
+            if ((int) checksum(buffer, bodySize) != expected) {
+                throw new IOException("ļУʧܣCRC32һ£ļ");
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("ǿļħȷ");
+            }
+            short version = buffer.getShort();
+            if (version > VERSION) {
+                throw new IOException("հ汾" + version + "ڵǰֵ֧İ汾" + VERSION);
+            }
+            buffer.getShort();
+            long createTime = buffer.getLong();
+            int sectionCount = buffer.getInt();
+
+            List<Department> departments = new ArrayList<>();
+            long journalSequence = 0;
+            for (int i = 0; i < sectionCount; i++) {
+                int type = buffer.getInt();
+                int length = buffer.getInt();
+                if (length < 0 || length > bodySize - buffer.position()) {
+                    throw new IOException("շֶγȲȷ" + length);
+                }
+                int next = buffer.position() + length;
+                if (type == SECTION_DEPARTMENTS) {
+                    readDepartments(buffer, departments);
+                } else if (type == SECTION_JOURNAL_POSITION) {
+                    journalSequence = buffer.getLong();
+                }
+                // ʶķֱֶ
+                buffer.position(next);
+            }
+            return new Content(createTime, departments, journalSequence);
+        }
+    }
+
+    private static void readDepartments(ByteBuffer buffer, List<Department> departments) throws IOException {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            Department department = new Department();
+            department.setDeptName(getString(buffer));
+            int doctorCount = buffer.getInt();
+            for (int j = 0; j < doctorCount; j++) {
+                String doctorId = getString(buffer);
+                Doctor doctor = new Doctor(getString(buffer), getString(buffer), getString(buffer),
+                        getString(buffer));
+                if (doctorId != null) {
+                    doctor.setDoctorId(doctorId);
+                }
+                department.addDoctor(doctor);
+            }
+            departments.add(department);
+        }
+    }
+
+    // CRC32[0, end)
+    private static long checksum(ByteBuffer buffer, int end) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        view.limit(end);
+        CRC32 crc = new CRC32();
+        crc.update(view);
+        return crc.getValue();
+    }
+
+    private static void putString(ByteBuffer buffer, CharsetEncoder encoder, String value)
+            throws CharacterCodingException {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        encoder.reset();
+        CoderResult result = encoder.encode(CharBuffer.wrap(value), buffer, true);
+        if (result.isError()) {
+            result.throwException();
+        }
+        encoder.flush(buffer);
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IOException("ַȲȷ" + length);
+        }
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    // ַдռõֽ + UTF-8룩ʵʱ룻ɶԵĴַ滻ַ'?'1ֽ
+    private static int sizeOf(String value) {
+        if (value == null) {
+            return 4;
+        }
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return 4 + bytes;
+    }
+}
@@ -0,0 +1,182 @@
+package main.java.service;
+
+import main.java.entity.Reservation;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 򲹶УŰID -> Ƚȳĺ򲹻
+ * ԴͷʱȡԤԼֱȡ׺򲹲ѺԴת򲹻߲ҪԹҺ
+ * 򲹳ʱ÷ȡȴӶƳΪʱͬŰĿһɾȥŰĶвڴ
+ */
+class Waitlist {
+
+    // ״̬ȴ -> ѱתռãعʱصȴУ/ ѹ
+    private static final int WAITING = 0;
+    private static final int CLAIMED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Map<String, Deque<Waiter>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * һλ򲹻
+     */
+    static class Waiter {
+        private final String patientId;
+        private final CompletableFuture<Reservation> future = new CompletableFuture<>();
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Waiter(String patientId, long timeoutMillis) {
+            this.patientId = patientId;
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        String getPatientId() {
+            return patientId;
+        }
+
+        CompletableFuture<Reservation> getFuture() {
+            return future;
+        }
+
+        // ڵȴʱΪڲcause
+        private boolean expire(Exception cause) {
+            if (state.compareAndSet(WAITING, EXPIRED)) {
+                future.completeExceptionally(cause);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 򲹶β
+     * 
+     * @param scheduleId    ŰID
+     * @param patientId     ID
+     * @param timeoutMillis ȴʱ䣨룩
+     * @return 򲹣תɹʱfutureõµԤԼ
+     */
+    Waiter add(String scheduleId, String patientId, long timeoutMillis) {
+        Waiter waiter = new Waiter(patientId, timeoutMillis);
+        queues.compute(scheduleId, (key, deque) -> {
+            if (deque == null) {
+                deque = new ConcurrentLinkedDeque<>();
+            }
+            deque.addLast(waiter);
+            return deque;
+        });
+        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS)
+                .execute(() -> waiter.expire(new TimeoutException("򲹵ȴʱ")));
+        // ÷ȡȴٲתʱȡתɺ󶼰ѽڵƳ
+        waiter.future.whenComplete((reservation, e) -> {
+            if (waiter.future.isCancelled()) {
+                waiter.state.compareAndSet(WAITING, EXPIRED);
+            }
+            discard(scheduleId, waiter);
+        });
+        return waiter;
+    }
+
+    /**
+     * ȡռöڵȴĺ򲹣ѹڡȡĽڵ
+     * 
+     * @param scheduleId ŰID
+     * @return 򲹣ûеȴĺʱnull
+     */
+    Waiter claimNext(String scheduleId) {
+        Deque<Waiter> deque = queues.get(scheduleId);
+        if (deque == null) {
+            return null;
+        }
+        Waiter waiter;
+        while ((waiter = deque.pollFirst()) != null) {
+            if (System.nanoTime() - waiter.deadlineNanos >= 0) {
+                waiter.expire(new TimeoutException("򲹵ȴʱ"));
+                continue;
+            }
+            if (waiter.state.compareAndSet(WAITING, CLAIMED)) {
+                break;
+            }
+        }
+        queues.computeIfPresent(scheduleId, (key, current) -> current.isEmpty() ? null : current);
+        return waiter;
+    }
+
+    /**
+     * תعʱѺ򲹷Żضףԭ˳
+     */
+    void unclaim(String scheduleId, Waiter waiter) {
+        // ռڼ÷ȡȴ
+        if (waiter.future.isDone()) {
+            waiter.state.set(EXPIRED);
+            return;
+        }
+        // ռڼѵڣʱ񴥷ʱ״̬ǵȴУûнfutureﲹ
+        if (System.nanoTime() - waiter.deadlineNanos >= 0) {
+            waiter.state.set(EXPIRED);
+            waiter.future.completeExceptionally(new TimeoutException("򲹵ȴʱ"));
+            return;
+        }
+        waiter.state.set(WAITING);
+        queues.compute(scheduleId, (key, deque) -> {
+            if (deque == null) {
+                deque = new ConcurrentLinkedDeque<>();
+            }
+            deque.addFirst(waiter);
+            return deque;
+        });
+        // Żضǰ÷ȡ˵ȴʱȡصڷŻִУƳһ
+        if (waiter.future.isDone()) {
+            discard(scheduleId, waiter);
+        }
+    }
+
+    // ѽڵƳУΪʱɾŰĿ
+    private void discard(String scheduleId, Waiter waiter) {
+        queues.computeIfPresent(scheduleId, (key, deque) -> {
+            deque.remove(waiter);
+            return deque.isEmpty() ? null : deque;
+        });
+    }
+
+    /**
+     * Ű൱ǰȴеĺ
+     */
+    int size(String scheduleId) {
+        Deque<Waiter> deque = queues.get(scheduleId);
+        if (deque == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Waiter waiter : deque) {
+            if (waiter.state.get() == WAITING) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * causeȫȴеĺ򲹣رʱã
+     */
+    void failAll(Exception cause) {
+        for (String scheduleId : queues.keySet()) {
+            Deque<Waiter> deque = queues.remove(scheduleId);
+            if (deque == null) {
+                continue;
+            }
+            for (Waiter waiter : deque) {
+                waiter.expire(cause);
+            }
+        }
+    }
+}
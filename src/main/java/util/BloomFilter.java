@@ -0,0 +1,128 @@
+package main.java.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ַ¡жһֵһڡ򡰿ܴڡ
+ * λ鰴ԤԪȷkλ64λϣ˫عϣh1 + i * h2õ
+ * λCASɣɶ̲߳дѯ֧ɾɾֵֻУ
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    // λ鳤ȣλ
+    private final long bitCount;
+
+    // ϣ
+    private final int hashCount;
+
+    // дĴظдͬһֵҲڹ㵱ǰ
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * @param expectedInsertions ԤдԪ
+     * @param falsePositiveRate  ʣ(0, 1)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("ԤԪ0");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("ʱ01֮");
+        }
+        // m = -n * ln(p) / (ln2)^2k = m / n * ln2
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (bits + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("¡" + bits + "λ");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * дһֵnullԣ
+     */
+    public void put(String value) {
+        if (value == null) {
+            return;
+        }
+        long h1 = hash(value);
+        long h2 = fmix64(h1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1 + i * h2));
+        }
+        insertions.increment();
+    }
+
+    /**
+     * ֵǷܴڣfalseʱһڣtrueʱܴڣҪȷϣ
+     */
+    public boolean mightContain(String value) {
+        if (value == null) {
+            return false;
+        }
+        long h1 = hash(value);
+        long h2 = fmix64(h1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * дĵǰʣ(1 - e^(-k * n / m))^k
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions.sum() / bitCount), hashCount);
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // Ϲϣӳ䵽[0, bitCount)
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        while (true) {
+            long current = bits.get(word);
+            if ((current & mask) != 0 || bits.compareAndSet(word, current, current | mask)) {
+                return;
+            }
+        }
+    }
+
+    // FNV-1aַۼӣMurmurHash3fmix64ɢ
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1 +1,207 @@
- 
+package main.java.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDɹࣨhi/loŶη䣩
+ * ÿδݿбԤռһĺţŶΣŶڵIDڱڵCASţ
+ * ֻкŶʱŷһݿ⣬עᡢԤԼ߷ڲÿһIDݿȫ
+ * 
+ * бṹ
+ * CREATE TABLE id_sequence (seq_name VARCHAR(32) PRIMARY KEY, next_val BIGINT NOT NULL);
+ * ԤȲpatientdoctorreservationУnext_valΪһõĺţ1
+ */
+public class IDGenerator {
+
+    // ĬϺŶδСÿδݿԤռID
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    /**
+     * IDͣ + IDλ
+     */
+    public enum IdType {
+        PATIENT("patient", 10), DOCTOR("doctor", 8), RESERVATION("reservation", 12);
+
+        private final String seqName;
+        private final int digits;
+
+        IdType(String seqName, int digits) {
+            this.seqName = seqName;
+            this.digits = digits;
+        }
+
+        public String getSeqName() {
+            return seqName;
+        }
+
+        public int getDigits() {
+            return digits;
+        }
+    }
+
+    private static final Sequence PATIENT_SEQUENCE = new Sequence(IdType.PATIENT);
+    private static final Sequence DOCTOR_SEQUENCE = new Sequence(IdType.DOCTOR);
+    private static final Sequence RESERVATION_SEQUENCE = new Sequence(IdType.RESERVATION);
+
+    private static volatile int blockSize = DEFAULT_BLOCK_SIZE;
+
+    /**
+     * ˽й췽ֹⲿʵ
+     */
+    private IDGenerator() {
+    }
+
+    /**
+     * ɻID10λ֣
+     * 
+     * @return ID
+     * @throws SQLException ԤռŶʧ쳣
+     */
+    public static String nextPatientId() throws SQLException {
+        return PATIENT_SEQUENCE.nextId();
+    }
+
+    /**
+     * ҽID8λ֣
+     * 
+     * @return ҽID
+     * @throws SQLException ԤռŶʧ쳣
+     */
+    public static String nextDoctorId() throws SQLException {
+        return DOCTOR_SEQUENCE.nextId();
+    }
+
+    /**
+     * ԤԼţ12λ֣
+     * 
+     * @return ԤԼ
+     * @throws SQLException ԤռŶʧ쳣
+     */
+    public static String nextReservationId() throws SQLException {
+        return RESERVATION_SEQUENCE.nextId();
+    }
+
+    /**
+     * úŶδС֮ԤռĺŶЧ
+     * ŶԽݿԽ٣ڵʱδŵĺŻᱻ
+     * 
+     * @param size ŶδС
+     */
+    public static void setBlockSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("ŶδС0");
+        }
+        blockSize = size;
+    }
+
+    public static int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * ָʽΪ̶λIDಹ0
+     */
+    static String format(long value, int digits) {
+        char[] chars = new char[digits];
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * ݿбԤռһŶ
+     * ͬһٶأ֤ڵԤռĺŶλص
+     * 
+     * @return Ŷ [start, end)
+     */
+    private static Block fetchBlock(IdType type, int size) throws SQLException {
+        String updateSql = "UPDATE id_sequence SET next_val = next_val + ? WHERE seq_name = ?";
+        String selectSql = "SELECT next_val FROM id_sequence WHERE seq_name = ?";
+
+        // ʹöӲύʹԤԼIDҲбе
+        try (Connection conn = JDBCUtil.getNewConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement update = conn.prepareStatement(updateSql);
+                    PreparedStatement select = conn.prepareStatement(selectSql)) {
+
+                update.setInt(1, size);
+                update.setString(2, type.getSeqName());
+                if (update.executeUpdate() != 1) {
+                    throw new IllegalStateException("IDвڣ" + type.getSeqName());
+                }
+
+                select.setString(1, type.getSeqName());
+                long end;
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    end = rs.getLong(1);
+                }
+                conn.commit();
+                return new Block(end - size, end);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * IDУеǰŶΣŶţʱΣͬһʱֻһ߳ȥݿԤռ
+     */
+    private static class Sequence {
+        private final IdType type;
+        private final long maxValue;
+        private volatile Block current = new Block(0, 0);
+
+        Sequence(IdType type) {
+            this.type = type;
+            long max = 1;
+            for (int i = 0; i < type.getDigits(); i++) {
+                max *= 10;
+            }
+            this.maxValue = max - 1;
+        }
+
+        String nextId() throws SQLException {
+            while (true) {
+                Block block = current;
+                long value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    if (value > maxValue) {
+                        throw new IllegalStateException(type.getDigits() + "λ" + type.getSeqName() + " IDþ");
+                    }
+                    return format(value, type.getDigits());
+                }
+                refill(block);
+            }
+        }
+
+        private void refill(Block exhausted) throws SQLException {
+            synchronized (this) {
+                // ߳ѻºŶʱֱӷ
+                if (current == exhausted) {
+                    current = fetchBlock(type, blockSize);
+                }
+            }
+        }
+    }
+
+    // Ŷ [start, end)nextΪһŵĺ
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
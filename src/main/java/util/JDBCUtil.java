@@ -1,13 +1,17 @@
 package main.java.util;
 
 import com.alibaba.druid.pool.DruidDataSource;
-import com.alibaba.druid.pool.DruidDataSourceFactory;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
 
 /**
  * JDBCࣨ仪ΪRDS MySQL
@@ -18,6 +22,25 @@ public class JDBCUtil {
     // ˽о̬Դװԣ
     private static DruidDataSource dataSource;
 
+    // ֻӿԴѡδjdbc.replica.urlʱΪnullж⣩
+    private static volatile DataSource replicaDataSource;
+
+    // дʱ䴰ڣ룩߳дʱڣ⣬֤Լд
+    private static volatile long readYourWritesNanos = TimeUnit.SECONDS.toNanos(3);
+
+    // ߳һдʱ䣨System.nanoTime
+    private static final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+
+    // Ự综ID¼һдʱ䣺дڹ߳ʱ߳û̱߳ǣ
+    // ỰѯʱԴжǷԴд
+    private static final ConcurrentHashMap<String, Long> sessionWriteNanos = new ConcurrentHashMap<>();
+
+    // Ựдǳʱѹڵļ¼
+    private static final int MAX_SESSION_MARKS = 10000;
+
+    // ԴǰִеĲд󻺳едݿ⣩Ǽ˳ִ
+    private static final List<Runnable> beforeDestroyHooks = new CopyOnWriteArrayList<>();
+
     // ̬飺ļ + ʼΪRDSԴִһΣ
     static {
         try {
@@ -26,14 +49,43 @@ public class JDBCUtil {
             props.load(JDBCUtil.class.getClassLoader().getResourceAsStream("db.properties"));
 
             // 2. ʼDruidԴ仪ΪRDSԣ
-            dataSource = (DruidDataSource) DruidDataSourceFactory.createDataSource(props);
+            // ȡjdbc.*ãDruidDataSourceFactoryֻurlusernameȲǰ׺ļ
+            // jdbc.urlеrewriteBatchedStatementsuseCursorFetchȲӳشС
+            String url = props.getProperty("jdbc.url");
+            if (url == null || url.trim().isEmpty()) {
+                throw new IllegalStateException("db.propertiesȱjdbc.url");
+            }
+            DruidDataSource primary = new DruidDataSource();
+            primary.setDriverClassName(props.getProperty("jdbc.driver"));
+            primary.setUrl(url.trim());
+            primary.setUsername(props.getProperty("jdbc.username"));
+            primary.setPassword(props.getProperty("jdbc.password"));
+            primary.setInitialSize(Integer.parseInt(props.getProperty("jdbc.initialSize", "5")));
+            primary.setMaxActive(Integer.parseInt(props.getProperty("jdbc.maxActive", "20")));
+            primary.setMinIdle(Integer.parseInt(props.getProperty("jdbc.minIdle", "3")));
+            primary.setMaxWait(Long.parseLong(props.getProperty("jdbc.maxWait", "60000")));
+            configurePool(primary, props);
+            dataSource = primary;
+
+            // 3. ʼֻӿԴѡjdbc.replica.urlʱöд룩
+            String replicaUrl = props.getProperty("jdbc.replica.url");
+            if (replicaUrl != null && !replicaUrl.trim().isEmpty()) {
+                DruidDataSource replica = new DruidDataSource();
+                replica.setDriverClassName(props.getProperty("jdbc.replica.driver", props.getProperty("jdbc.driver")));
+                replica.setUrl(replicaUrl.trim());
+                replica.setUsername(props.getProperty("jdbc.replica.username", props.getProperty("jdbc.username")));
+                replica.setPassword(props.getProperty("jdbc.replica.password", props.getProperty("jdbc.password")));
+                replica.setInitialSize(Integer.parseInt(props.getProperty("jdbc.replica.initialSize", "5")));
+                replica.setMaxActive(Integer.parseInt(props.getProperty("jdbc.replica.maxActive", "20")));
+                replica.setMinIdle(Integer.parseInt(props.getProperty("jdbc.replica.minIdle", "3")));
+                replica.setMaxWait(Long.parseLong(props.getProperty("jdbc.replica.maxWait", "60000")));
+                configurePool(replica, props);
+                replicaDataSource = replica;
+            }
+            setReadYourWritesMillis(Long.parseLong(props.getProperty("jdbc.replica.readYourWritesMillis", "3000")));
 
-            // ΪRDSרãѡǿȶԣ
-            dataSource.setValidationQuery("SELECT 1"); // ЧԼ⣨ΪƼ
-            dataSource.setTestOnBorrow(true); // ȡʱЧ
-            dataSource.setTestOnReturn(false); // 黹ʱ⣨ܣ
-            dataSource.setTimeBetweenEvictionRunsMillis(60000); // 60һο
-            dataSource.setMinEvictableIdleTimeMillis(300000); // ӳʱʱ䣨5ӣ
+            // 4. ʼSQLӳؼأSQLֵļȾȡdb.properties
+            SQLMetrics.configure(props);
 
         } catch (Exception e) {
             // 쳣װ仪Ϊ־Ų飬׳ʱ쳣ֹʼ
@@ -47,6 +99,23 @@ public class JDBCUtil {
     private JDBCUtil() {
     }
 
+    /**
+     * ӳͨã⡢ӿ⹲ã
+     */
+    private static void configurePool(DruidDataSource ds, Properties props) {
+        // ΪRDSרãѡǿȶԣ
+        ds.setValidationQuery("SELECT 1"); // ЧԼ⣨ΪƼ
+        ds.setTestOnBorrow(true); // ȡʱЧ
+        ds.setTestOnReturn(false); // 黹ʱ⣨ܣ
+        ds.setTimeBetweenEvictionRunsMillis(60000); // 60һο
+        ds.setMinEvictableIdleTimeMillis(300000); // ӳʱʱ䣨5ӣ
+        // ӻPreparedStatementͬһظִͬSQLʱԤ䣬ٽ
+        ds.setPoolPreparedStatements(
+                Boolean.parseBoolean(props.getProperty("jdbc.poolPreparedStatements", "true")));
+        ds.setMaxPoolPreparedStatementPerConnectionSize(
+                Integer.parseInt(props.getProperty("jdbc.maxPoolPreparedStatementPerConnectionSize", "50")));
+    }
+
     /**
      * ȡݿӣDruidӳػȡ仪ΪRDS
      * 
@@ -54,11 +123,158 @@ public class JDBCUtil {
      * @throws SQLException ӻȡʧ쳣
      */
     public static Connection getConnection() throws SQLException {
+        // ڹԪUnitOfWorkʱùԪӣDAOùͬһӡͳһύ
+        Connection shared = UnitOfWork.currentConnection();
+        if (shared != null) {
+            return shared;
+        }
+        return borrow(dataSource);
+    }
+
+    /**
+     * ȡһӣ뵱ǰԪ
+     * ڱύܱϳʱĲIDŶԤռ
+     * 
+     * @return Connection ݿӶ
+     * @throws SQLException ӻȡʧ쳣
+     */
+    public static Connection getNewConnection() throws SQLException {
+        return borrow(dataSource);
+    }
+
+    /**
+     * ָԴ
+     */
+    private static Connection borrow(DataSource source) throws SQLException {
         // ӳػȡӣ½ӣΪƼ
-        Connection conn = dataSource.getConnection();
+        // ͳƻȡʱӳصȴʱtestOnBorrowSELECT 1ʱ
+        long start = System.nanoTime();
+        Connection conn;
+        try {
+            conn = source.getConnection();
+        } catch (SQLException e) {
+            SQLMetrics.recordBorrowFailure();
+            throw e;
+        }
+        SQLMetrics.recordBorrow(System.nanoTime() - start);
         // ΪRDS MySQL 8.x ʱ䣨ֹʱֶƫƣ
         conn.setAutoCommit(true); // ĬԶύ
-        return conn;
+        // װӣͳÿSQLִкʱδʱԭӣ
+        return SQLMetrics.wrap(conn);
+    }
+
+    /**
+     * ȡֻӣֻѯDAO
+     * ôӿʱӴӿȡδôӿ⡢ڹԪڡ̸߳дݣдڣʱȡ
+     * 
+     * @return Connection ݿӶ
+     * @throws SQLException ӻȡʧ쳣
+     */
+    public static Connection getReadConnection() throws SQLException {
+        DataSource replica = replicaDataSource;
+        // ԪڵĶͬʹùԪӣ֤ڶдһ
+        if (replica == null || UnitOfWork.isActive() || isWithinReadYourWritesWindow()) {
+            return getConnection();
+        }
+        return borrow(replica);
+    }
+
+    /**
+     * ¼̷߳һдDAOдã
+     * ˺readYourWritesMillisڱ̵߳Ķ⣬Ӹӳٶд
+     */
+    public static void markWrite() {
+        if (replicaDataSource != null) {
+            lastWriteNanos.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * ¼ĳỰһдڹ߳÷дʱʹã
+     * ˺readYourWritesMillisԸûỰgetReadConnection(String)Ķ⣬ִжд߳޹
+     * 
+     * @param sessionKey Ựʶ综IDΪnullʱֻǱ߳
+     */
+    public static void markWrite(String sessionKey) {
+        markWrite();
+        if (replicaDataSource == null || sessionKey == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        sessionWriteNanos.put(sessionKey, now);
+        if (sessionWriteNanos.size() > MAX_SESSION_MARKS) {
+            sessionWriteNanos.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesNanos);
+        }
+    }
+
+    /**
+     * ȡĳỰֻӣûỰдʱ⣬ͬgetReadConnection()
+     * 
+     * @param sessionKey Ựʶ综IDΪnullʱͬgetReadConnection()
+     * @return Connection ݿӶ
+     * @throws SQLException ӻȡʧ쳣
+     */
+    public static Connection getReadConnection(String sessionKey) throws SQLException {
+        if (sessionKey != null && replicaDataSource != null && isWithinReadYourWritesWindow(sessionKey)) {
+            return getConnection();
+        }
+        return getReadConnection();
+    }
+
+    // ỰǷдʱ䴰
+    private static boolean isWithinReadYourWritesWindow(String sessionKey) {
+        Long lastWrite = sessionWriteNanos.get(sessionKey);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+            return true;
+        }
+        sessionWriteNanos.remove(sessionKey, lastWrite);
+        return false;
+    }
+
+    // ߳Ƿдʱ䴰
+    private static boolean isWithinReadYourWritesWindow() {
+        Long lastWrite = lastWriteNanos.get();
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+            return true;
+        }
+        lastWriteNanos.remove();
+        return false;
+    }
+
+    /**
+     * дʱ䴰ڣӦСӸƵĵӳ٣
+     * 
+     * @param millis ʱ䴰ڣ룩
+     */
+    public static void setReadYourWritesMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("дʱ䴰ڲΪ");
+        }
+        readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * ֻӿԴʱ뱾Ƕʽݿ⣩nullرնд
+     * 
+     * @param replica ӿԴ
+     */
+    public static void setReplicaDataSource(DataSource replica) {
+        replicaDataSource = replica;
+    }
+
+    /**
+     * ȡֻӿԴ
+     * 
+     * @return ӿԴδʱnull
+     */
+    public static DataSource getReplicaDataSource() {
+        return replicaDataSource;
     }
 
     /**
@@ -124,10 +340,31 @@ public class JDBCUtil {
         return dataSource;
     }
 
+    /**
+     * ǼԴǰִеĲʱӳԿ
+     * 
+     * @param hook ҪִеĲ
+     */
+    public static void addBeforeDestroyHook(Runnable hook) {
+        beforeDestroyHooks.add(hook);
+    }
+
     /**
      * ԴӦùرʱãͷŻΪRDSԴ
+     * ִеǼǵǰʧܲӰԴĹرգ
      */
     public static void destroyDataSource() {
+        for (Runnable hook : beforeDestroyHooks) {
+            try {
+                hook.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        SQLMetrics.stopReporter();
+        if (replicaDataSource instanceof DruidDataSource) {
+            ((DruidDataSource) replicaDataSource).close();
+        }
         if (dataSource != null) {
             dataSource.close();
         }
@@ -0,0 +1,515 @@
+package main.java.util;
+
+import com.alibaba.druid.pool.DruidDataSource;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQLӳؼعࣨJDBCUtilʹã
+ * ͳݣÿSQLĺʱֲp50/p99ȡӺʱSELECT 1ЧԼʱӳʹʡSQL¼
+ * ͳƽڽͨsnapshot()ѯҲɰ׷д뱾ļ
+ * 
+ * db.propertiesеѡ
+ * metrics.enabledǷSQLʱͳƣĬtrue
+ * metrics.slowSqlMillisSQLֵλ루Ĭ1000
+ * metrics.dumpFileͳƽļ·
+ * metrics.dumpIntervalSecondsڣλ루Ĭ60
+ */
+public class SQLMetrics {
+
+    // ౣSQLļ¼
+    private static final int MAX_SLOW_QUERIES = 200;
+
+    private static volatile boolean enabled = true;
+
+    private static volatile long slowSqlNanos = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    // ÿSQLͳƣSQLıΪ
+    private static final Map<String, SqlStat> sqlStats = new ConcurrentHashMap<>();
+
+    // ȡӺʱӳصȴtestOnBorrowSELECT 1⣩
+    private static final LatencyHistogram borrowLatency = new LatencyHistogram();
+
+    // SELECT 1ЧԼʱprobeValidation
+    private static final LatencyHistogram validationLatency = new LatencyHistogram();
+
+    // ȡʧܴȴʱ
+    private static final LongAdder borrowFailures = new LongAdder();
+
+    // SQL¼
+    private static final Deque<SlowQuery> slowQueries = new ConcurrentLinkedDeque<>();
+
+    private static ScheduledExecutorService reporter;
+
+    /**
+     * ˽й췽ֹⲿʵ
+     */
+    private SQLMetrics() {
+    }
+
+    /**
+     * ļʼJDBCUtilԴʼã
+     * 
+     * @param props db.propertiesе
+     */
+    static void configure(Properties props) {
+        enabled = Boolean.parseBoolean(props.getProperty("metrics.enabled", "true"));
+        setSlowSqlMillis(Long.parseLong(props.getProperty("metrics.slowSqlMillis", "1000")));
+
+        String dumpFile = props.getProperty("metrics.dumpFile");
+        if (dumpFile != null && !dumpFile.trim().isEmpty()) {
+            long interval = Long.parseLong(props.getProperty("metrics.dumpIntervalSeconds", "60"));
+            startReporter(Paths.get(dumpFile.trim()), interval);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * SQLֵ
+     * 
+     * @param millis ֵ룩ִкʱڸֵSQLSQL־
+     */
+    public static void setSlowSqlMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("SQLֵΪ");
+        }
+        slowSqlNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * װӣͨӴִʱԶͳƺʱ
+     * δͳʱԭ
+     * 
+     * @param conn ԭʼ
+     * @return װ
+     */
+    public static Connection wrap(Connection conn) {
+        if (!enabled || conn == null) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(SQLMetrics.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(conn));
+    }
+
+    /**
+     * ¼һλȡӵĺʱ
+     */
+    static void recordBorrow(long nanos) {
+        borrowLatency.record(nanos);
+    }
+
+    /**
+     * ¼һλȡʧܣȴʱ
+     */
+    static void recordBorrowFailure() {
+        borrowFailures.increment();
+    }
+
+    /**
+     * ¼һSQLִ
+     * 
+     * @param sql     SQLı
+     * @param nanos   ʱ룩
+     * @param success Ƿִгɹ
+     */
+    public static void recordSql(String sql, long nanos, boolean success) {
+        if (sql == null) {
+            return;
+        }
+        sqlStats.computeIfAbsent(sql, key -> new SqlStat()).record(nanos, success);
+        if (nanos >= slowSqlNanos) {
+            slowQueries.addLast(new SlowQuery(sql, nanos, LocalDateTime.now()));
+            while (slowQueries.size() > MAX_SLOW_QUERIES) {
+                slowQueries.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * һSELECT 1ЧԼĺʱһִм黹
+     * 
+     * @throws SQLException ݿ쳣
+     */
+    public static void probeValidation() throws SQLException {
+        DruidDataSource dataSource = JDBCUtil.getDataSource();
+        String validationQuery = dataSource.getValidationQuery();
+        if (validationQuery == null) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection();
+                Statement stmt = conn.createStatement()) {
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery(validationQuery)) {
+                rs.next();
+            }
+            validationLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    // ѯӿ
+    public static Map<String, SqlStat> getSqlStats() {
+        return Collections.unmodifiableMap(sqlStats);
+    }
+
+    public static LatencyHistogram getBorrowLatency() {
+        return borrowLatency;
+    }
+
+    public static LatencyHistogram getValidationLatency() {
+        return validationLatency;
+    }
+
+    public static long getBorrowFailures() {
+        return borrowFailures.sum();
+    }
+
+    public static List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(slowQueries);
+    }
+
+    /**
+     * ͳ
+     */
+    public static void reset() {
+        sqlStats.clear();
+        borrowLatency.reset();
+        validationLatency.reset();
+        borrowFailures.reset();
+        slowQueries.clear();
+    }
+
+    /**
+     * ɵǰͳƽı
+     * 
+     * @return ͳƱ
+     */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("==== SQLؿ ").append(LocalDateTime.now()).append(" ====\n");
+
+        DruidDataSource dataSource = JDBCUtil.getDataSource();
+        if (dataSource != null) {
+            int active = dataSource.getActiveCount();
+            int maxActive = dataSource.getMaxActive();
+            sb.append("[ӳ] active=").append(active)
+                    .append(" idle=").append(dataSource.getPoolingCount())
+                    .append(" maxActive=").append(maxActive)
+                    .append(" utilization=").append(maxActive == 0 ? 0 : active * 100 / maxActive).append('%')
+                    .append(" waitingThreads=").append(dataSource.getWaitThreadCount())
+                    .append(" borrowFailures=").append(getBorrowFailures())
+                    .append('\n');
+            sb.append("[仺] hit=").append(dataSource.getCachedPreparedStatementHitCount())
+                    .append(" miss=").append(dataSource.getCachedPreparedStatementMissCount())
+                    .append('\n');
+        }
+        sb.append("[ȡ] ").append(borrowLatency).append('\n');
+        sb.append("[SELECT 1] ").append(validationLatency).append('\n');
+
+        for (Map.Entry<String, SqlStat> entry : sqlStats.entrySet()) {
+            sb.append("[SQL] ").append(entry.getValue()).append(" | ").append(entry.getKey()).append('\n');
+        }
+        for (SlowQuery slowQuery : slowQueries) {
+            sb.append("[SQL] ").append(slowQuery).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * ÿһʱһSELECT 1ʱͳƿ׷дָļ
+     * 
+     * @param file            ļ
+     * @param intervalSeconds ڣ룩
+     */
+    public static synchronized void startReporter(Path file, long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("ڱ0");
+        }
+        stopReporter();
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sql-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            try {
+                probeValidation();
+                Files.write(file, snapshot().getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (SQLException | IOException e) {
+                e.printStackTrace();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * ֹͣJDBCUtilԴʱã
+     */
+    public static synchronized void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * ʱֱֲͼ΢뾫ȣ
+     * ÿ2ٵȷΪ4Ͱλ25%¼ֻһԭ
+     */
+    public static class LatencyHistogram {
+        private static final int SUB_BITS = 2;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKET_COUNT = 64 * SUB_COUNT;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        public void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            buckets.incrementAndGet(indexOf(micros));
+            count.increment();
+            totalMicros.add(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMaxMicros() {
+            return maxMicros.get();
+        }
+
+        public long getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalMicros.sum() / n;
+        }
+
+        /**
+         * ȡλ΢룩
+         * 
+         * @param quantile λȡֵ(0, 1]0.50.99
+         * @return λӦĺʱϽ磬ʱ0
+         */
+        public long getPercentileMicros(double quantile) {
+            long total = 0;
+            long[] snapshot = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += snapshot[i];
+                if (seen >= target) {
+                    return Math.min(upperBoundOf(i), maxMicros.get());
+                }
+            }
+            return maxMicros.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalMicros.reset();
+            maxMicros.set(0);
+        }
+
+        private static int indexOf(long micros) {
+            if (micros < SUB_COUNT) {
+                return (int) micros;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) ((micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+            return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        private static long upperBoundOf(int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            int exponent = index / SUB_COUNT + SUB_BITS - 1;
+            int sub = index % SUB_COUNT;
+            long width = 1L << (exponent - SUB_BITS);
+            return (1L << exponent) + sub * width + width - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() +
+                    " mean=" + getMeanMicros() + "us" +
+                    " p50=" + getPercentileMicros(0.5) + "us" +
+                    " p99=" + getPercentileMicros(0.99) + "us" +
+                    " max=" + getMaxMicros() + "us";
+        }
+    }
+
+    /**
+     * SQLͳƣʱֲ + ʧܴ
+     */
+    public static class SqlStat {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errorCount = new LongAdder();
+
+        void record(long nanos, boolean success) {
+            latency.record(nanos);
+            if (!success) {
+                errorCount.increment();
+            }
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getErrorCount() {
+            return errorCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return latency + " errors=" + getErrorCount();
+        }
+    }
+
+    /**
+     * SQL¼
+     */
+    public static class SlowQuery {
+        private final String sql;
+        private final long nanos;
+        private final LocalDateTime time;
+
+        SlowQuery(String sql, long nanos, LocalDateTime time) {
+            this.sql = sql;
+            this.nanos = nanos;
+            this.time = time;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        @Override
+        public String toString() {
+            return time + " " + getMillis() + "ms | " + sql;
+        }
+    }
+
+    // ӴͬԱͳִкʱ
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            String name = method.getName();
+            if (result instanceof PreparedStatement && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                return Proxy.newProxyInstance(SQLMetrics.class.getClassLoader(),
+                        new Class<?>[] { method.getReturnType() },
+                        new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if (result instanceof Statement && name.equals("createStatement")) {
+                return Proxy.newProxyInstance(SQLMetrics.class.getClassLoader(),
+                        new Class<?>[] { Statement.class }, new StatementHandler((Statement) result, null));
+            }
+            return result;
+        }
+    }
+
+    // ͳexecute/executeQuery/executeUpdate/executeBatchĺʱ
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+            // StatementֱִʱSQLڲУPreparedStatementʹԤʱSQL
+            String sql = preparedSql;
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result = invokeTarget(target, method, args);
+                success = true;
+                return result;
+            } finally {
+                recordSql(sql, System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    // ñķԭ׳ԭʼ쳣
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package main.java.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ԫ
+ * executeΧڣͨJDBCUtil.getConnectionȡӵDAOùͬһӣ
+ * ֻһӡֻһЧԼ⣬ͳһύһ׳쳣ع
+ * 
+ * ÷
+ * UnitOfWork.execute(() -> {
+ *     scheduleDAO.tryBookSlot(scheduleId);
+ *     reservationDAO.add(reservation);
+ *     return null;
+ * });
+ */
+public class UnitOfWork {
+
+    /**
+     * ԪִеĲ
+     * 
+     * @param <T> ֵ
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws Exception;
+    }
+
+    // ǰ̵߳ĹԪ
+    private static final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+    /**
+     * ˽й췽ֹⲿʵ
+     */
+    private UnitOfWork() {
+    }
+
+    /**
+     * ڹԪִвɹύ׳쳣ع
+     * Ƕ׵ʱ㹤Ԫͳһύع
+     * 
+     * @param work ҪִеĲ
+     * @return ķֵ
+     * @throws Exception ׳쳣ύ/عʧܵݿ쳣
+     */
+    public static <T> T execute(Work<T> work) throws Exception {
+        if (currentScope.get() != null) {
+            return work.execute();
+        }
+
+        Connection conn = JDBCUtil.getNewConnection();
+        Scope scope = new Scope(conn);
+        currentScope.set(scope);
+        try {
+            conn.setAutoCommit(false);
+            T result;
+            try {
+                result = work.execute();
+            } catch (Exception | Error e) {
+                rollbackQuietly(conn, e);
+                throw e;
+            }
+            if (scope.rollbackOnly) {
+                conn.rollback();
+                throw new IllegalStateException("ԪڵĲҪعδύ");
+            }
+            try {
+                conn.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(conn, e);
+                throw e;
+            }
+            // ύɹִеǼǵĻصڴعʱЩصִ
+            currentScope.remove();
+            runCallbacks(scope.afterCommitCallbacks);
+            return result;
+        } finally {
+            currentScope.remove();
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            JDBCUtil.close(conn);
+        }
+    }
+
+    /**
+     * ǼύɹִеĲͬڴ棩
+     * ڹԪʱִУʱԶύ
+     * ص׳쳣ֻ¼׳Ѿύ÷Ӧдʧܣصճִ
+     * 
+     * @param callback ҪִеĲ
+     */
+    public static void afterCommit(Runnable callback) {
+        Scope scope = currentScope.get();
+        if (scope == null) {
+            runCallbacks(Collections.singletonList(callback));
+        } else {
+            scope.afterCommitCallbacks.add(callback);
+        }
+    }
+
+    /**
+     * ǰ߳ǷڹԪ
+     */
+    public static boolean isActive() {
+        return currentScope.get() != null;
+    }
+
+    /**
+     * ȡǰԪӣJDBCUtilʹã
+     * صӺclose/commit/setAutoCommitֻ߽executeƣrollbackѹԪΪع
+     * 
+     * @return ӣڹԪʱnull
+     */
+    static Connection currentConnection() {
+        Scope scope = currentScope.get();
+        return scope == null ? null : scope.sharedView;
+    }
+
+    // ִύĻصĳصʧܲӰص
+    private static void runCallbacks(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException | Error e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, Throwable cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // һԪʵ + ṩDAOĹͼ
+    private static class Scope implements InvocationHandler {
+        private final Connection connection;
+        private final Connection sharedView;
+        private final List<Runnable> afterCommitCallbacks = new ArrayList<>();
+        private boolean rollbackOnly;
+
+        Scope(Connection connection) {
+            this.connection = connection;
+            this.sharedView = (Connection) Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    // ߽ɹԪƣDAOڲĹر/ύ/лԶύһɺ
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "getAutoCommit":
+                    return false;
+                case "isClosed":
+                    return connection.isClosed();
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
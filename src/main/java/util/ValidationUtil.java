@@ -1 +1,129 @@
- 
+package main.java.util;
+
+/**
+ * ֶУ鹤
+ * ַɨɸʽУ飬򡢲MatcherҲκʱ
+ * ʵsetterʹãÿݿļ¼ᾭЩУ飩
+ */
+public class ValidationUtil {
+
+    // ֤ǰ17λļȨӣGB 11643-1999
+    private static final int[] IDENTITY_WEIGHTS = { 7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2 };
+
+    // ȨͶ11ȡģӦУ
+    private static final char[] IDENTITY_CHECK_CODES = { '1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2' };
+
+    /**
+     * ˽й췽ֹⲿʵ
+     */
+    private ValidationUtil() {
+    }
+
+    /**
+     * жַǷǡָλɣȼ matches("\\d{length}")
+     * 
+     * @param value  Уַ
+     * @param length Ҫλ
+     * @return ǷϷ
+     */
+    public static boolean isDigits(String value, int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * жǷΪϷֻţ11λ֣1ͷڶλΪ3-9ȼ matches("1[3-9]\\d{9}")
+     * 
+     * @param phone ֻ
+     * @return ǷϷ
+     */
+    public static boolean isMobilePhone(String phone) {
+        if (phone == null || phone.length() != 11) {
+            return false;
+        }
+        if (phone.charAt(0) != '1') {
+            return false;
+        }
+        char second = phone.charAt(1);
+        if (second < '3' || second > '9') {
+            return false;
+        }
+        for (int i = 2; i < 11; i++) {
+            if (!isDigit(phone.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ֤ŵĹ淶ʽĩλСдxתΪдX಻䣨nullԭأ
+     * ͬһֻ֤һдΪΨһԼļʱСд
+     * 
+     * @param identityId ֤
+     * @return 淶ʽ
+     */
+    public static String normalizeIdentityId(String identityId) {
+        if (identityId == null || identityId.isEmpty() || identityId.charAt(identityId.length() - 1) != 'x') {
+            return identityId;
+        }
+        return identityId.substring(0, identityId.length() - 1) + 'X';
+    }
+
+    /**
+     * жǷΪϷ18λ֤ţǰ17λΪ֣һλΪУ루ֻXУȷ
+     * 
+     * @param identityId ֤
+     * @return ǷϷ
+     */
+    public static boolean isIdentityId(String identityId) {
+        if (identityId == null || identityId.length() != 18) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = identityId.charAt(i);
+            if (!isDigit(c)) {
+                return false;
+            }
+            sum += (c - '0') * IDENTITY_WEIGHTS[i];
+        }
+        char check = identityId.charAt(17);
+        if (check == 'x') {
+            check = 'X';
+        }
+        return check == IDENTITY_CHECK_CODES[sum % 11];
+    }
+
+    /**
+     * ַ[begin, end)ֽΪ Integer.parseInt(substring(...))Ӵ
+     * ÷豣֤ȫΪ
+     * 
+     * @param value ַ
+     * @param begin ʼ±꣨
+     * @param end   ±꣨
+     * @return 
+     */
+    public static int parseDigits(String value, int begin, int end) {
+        int result = 0;
+        for (int i = begin; i < end; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                throw new NumberFormatException("ַ" + c);
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,108 @@
+package main.java.dao;
+
+import main.java.util.JDBCUtil;
+import main.java.util.UnitOfWork;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BaseDAOд룺ִСύʧлִ׳쳣ʱع
+ */
+public class BaseDAOBatchTest {
+
+    private static final String INSERT_SQL = "INSERT INTO batch_item (id) VALUES (?)";
+
+    // ֻBaseDAOܱ
+    private static class ItemDAO extends BaseDAO {
+        BatchResult insertAll(Collection<Integer> ids, int batchSize) throws SQLException {
+            return executeBatch(INSERT_SQL, ids, batchSize, (pstmt, id) -> pstmt.setInt(1, id));
+        }
+
+        // 󶨵failAtʱ׳쳣ģ󶨲ʧ
+        BatchResult insertAllFailingAt(Collection<Integer> ids, int batchSize, int failAt) throws SQLException {
+            return executeBatch(INSERT_SQL, ids, batchSize, (pstmt, id) -> {
+                if (id == failAt) {
+                    throw new SQLException("󶨲ʧܣ" + id);
+                }
+                pstmt.setInt(1, id);
+            });
+        }
+    }
+
+    private final ItemDAO dao = new ItemDAO();
+
+    @BeforeAll
+    public static void createTable() throws Exception {
+        try (Connection conn = JDBCUtil.getNewConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS batch_item (id INT PRIMARY KEY)");
+        }
+    }
+
+    @BeforeEach
+    public void clearTable() throws Exception {
+        try (Connection conn = JDBCUtil.getNewConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM batch_item");
+        }
+    }
+
+    // ûʧʱȫύÿbatchSizeһ
+    @Test
+    public void allRowsCommitted() throws Exception {
+        BatchResult result = dao.insertAll(List.of(1, 2, 3, 4, 5), 2);
+        assertTrue(result.isCommitted());
+        assertEquals(5, result.getSuccessCount());
+        assertEquals(3, result.getRoundTrips());
+        assertEquals(5, countRows());
+    }
+
+    // һʧܣظʱع֮ǰִгɹҲ
+    @Test
+    public void failedRowRollsBackWholeBatch() throws Exception {
+        BatchResult result = dao.insertAll(List.of(1, 2, 3, 3, 4), 2);
+        assertFalse(result.isCommitted());
+        assertTrue(result.getFailures().containsKey(3));
+        assertEquals(0, countRows());
+    }
+
+    // ִ˲ַ֮󶨲׳쳣쳣׳ִеķع
+    @Test
+    public void exceptionAfterExecutedChunkRollsBack() throws Exception {
+        assertThrows(SQLException.class, () -> dao.insertAllFailingAt(List.of(1, 2, 3, 4), 2, 3));
+        assertEquals(0, countRows());
+        // ѻָԶύ黹д벻Ӱ
+        assertTrue(dao.insertAll(List.of(7), 1).isCommitted());
+        assertEquals(1, countRows());
+    }
+
+    // ڹԪʧʱԪΪعͬһԪڵдҲύ
+    @Test
+    public void failureInsideUnitOfWorkRollsBackUnit() throws Exception {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.execute(() -> {
+            assertTrue(dao.insertAll(List.of(1), 1).isCommitted());
+            assertFalse(dao.insertAll(List.of(2, 2), 2).isCommitted());
+            return null;
+        }));
+        assertEquals(0, countRows());
+    }
+
+    private static int countRows() throws SQLException {
+        try (Connection conn = JDBCUtil.getNewConnection(); Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM batch_item")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package main.java.dao;
+
+import main.java.entity.Department;
+import main.java.entity.Doctor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ų־ + ѹطŻָԼʱضдһļ¼
+ */
+public class DepartmentJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final DepartmentDAOImpl dao = new DepartmentDAOImpl();
+
+    @BeforeEach
+    @AfterEach
+    public void resetDepartments() {
+        DepartmentDAOImpl.attachJournal(null);
+        dao.replaceAll(Collections.emptyList());
+    }
+
+    // Ӽָطļ¼õǰͬĲҽ
+    @Test
+    public void checkpointPlusReplayRestoresState() throws Exception {
+        Path file = dir.resolve("department.journal");
+        Doctor zhang = doctor("00000001", "ҽ", "ڿ");
+        Doctor li = doctor("00000002", "ҽ", "");
+
+        DepartmentJournal journal = DepartmentJournal.open(file, 0);
+        DepartmentDAOImpl.attachJournal(journal);
+        dao.addDepartment(department("ڿ"));
+        dao.addDoctorToDepartment("ڿ", zhang);
+        DepartmentDAOImpl.Checkpoint checkpoint = DepartmentDAOImpl.checkpoint();
+        journal.compact(checkpoint.getJournalSequence());
+        dao.addDepartment(department(""));
+        dao.addDoctorToDepartment("", li);
+        dao.removeDoctorFromDepartment("ڿ", zhang);
+        DepartmentDAOImpl.attachJournal(null);
+        journal.close();
+
+        // ģڴݶʧȼؼط־
+        dao.replaceAll(Collections.emptyList());
+        try (DepartmentJournal reopened = DepartmentJournal.open(file, 0)) {
+            assertEquals(5, reopened.getLastSequence());
+            dao.replaceAll(checkpoint.getDepartments());
+            assertEquals(3, DepartmentDAOImpl.replayJournal(reopened, checkpoint.getJournalSequence()));
+        }
+
+        assertEquals(2, dao.findAll().size());
+        assertTrue(dao.getDoctorsInDepartment("ڿ").isEmpty());
+        assertEquals(1, dao.getDoctorsInDepartment("").size());
+        assertEquals("", dao.findByDoctorId("00000002").getDeptName());
+        assertNull(dao.findByDoctorId("00000001"));
+    }
+
+    // ѹֻ֮ļ¼ż
+    @Test
+    public void compactDropsRecordsInCheckpoint() throws Exception {
+        Path file = dir.resolve("department.journal");
+        try (DepartmentJournal journal = DepartmentJournal.open(file, 0)) {
+            DepartmentDAOImpl.attachJournal(journal);
+            dao.addDepartment(department("ڿ"));
+            dao.addDepartment(department(""));
+            journal.compact(DepartmentDAOImpl.checkpoint().getJournalSequence());
+            assertEquals(0, journal.replay(0, record -> { }));
+            dao.addDepartment(department(""));
+            DepartmentDAOImpl.attachJournal(null);
+            assertEquals(3, journal.getLastSequence());
+            assertEquals(1, journal.replay(0, record -> assertEquals(3, record.getSequence())));
+        }
+    }
+
+    // ʱдһĩβ¼ڴʱضϣ֮ǰļ¼֮Լ׷
+    @Test
+    public void tornTailIsTruncatedOnOpen() throws Exception {
+        Path file = dir.resolve("department.journal");
+        try (DepartmentJournal journal = DepartmentJournal.open(file, 0)) {
+            DepartmentDAOImpl.attachJournal(journal);
+            dao.addDepartment(department("ڿ"));
+            dao.addDepartment(department(""));
+            DepartmentDAOImpl.attachJournal(null);
+        }
+        long validSize = Files.size(file);
+
+        // ¼ͷ100ֽڵݣʵֻд3ֽ
+        ByteBuffer torn = ByteBuffer.allocate(11).putInt(100).putInt(0).put(new byte[] { 1, 2, 3 });
+        Files.write(file, torn.array(), StandardOpenOption.APPEND);
+
+        try (DepartmentJournal journal = DepartmentJournal.open(file, 0)) {
+            assertEquals(validSize, Files.size(file));
+            assertEquals(2, journal.getLastSequence());
+            DepartmentDAOImpl.attachJournal(journal);
+            dao.addDepartment(department(""));
+            DepartmentDAOImpl.attachJournal(null);
+        }
+
+        dao.replaceAll(Collections.emptyList());
+        try (DepartmentJournal journal = DepartmentJournal.open(file, 0)) {
+            assertEquals(3, DepartmentDAOImpl.replayJournal(journal, 0));
+        }
+        assertEquals(3, dao.findAll().size());
+    }
+
+    private static Department department(String name) {
+        Department department = new Department();
+        department.setDeptName(name);
+        return department;
+    }
+
+    private static Doctor doctor(String doctorId, String name, String deptName) {
+        Doctor doctor = new Doctor(name, "password", deptName, "ȫ");
+        doctor.setDoctorId(doctorId);
+        return doctor;
+    }
+}
@@ -0,0 +1,127 @@
+package main.java.entity;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ߳ͬʱͬһŰԤԼ/ȡ鲻״̬ԤԼһ
+ */
+public class ScheduleConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private static Schedule newSchedule(int availableSlots) {
+        return new Schedule("S1", "00000001", LocalDate.now().plusDays(1), LocalTime.of(8, 0),
+                LocalTime.of(12, 0), Schedule.MORNING, availableSlots, 0, Schedule.STATUS_NORMAL);
+    }
+
+    private static void assertConsistent(Schedule schedule) {
+        int booked = schedule.getBookedSlots();
+        assertTrue(booked >= 0 && booked <= schedule.getAvailableSlots(), "ԤԼԽ磺" + booked);
+        String expected = booked >= schedule.getAvailableSlots() ? Schedule.STATUS_FULL : Schedule.STATUS_NORMAL;
+        assertEquals(expected, schedule.getStatus());
+        assertEquals(schedule.getAvailableSlots() - booked, schedule.getRemainingSlots());
+    }
+
+    // ͬʱŵ߳ԶںԴɹǡõںԴŰΪ
+    @RepeatedTest(20)
+    public void concurrentBookingNeverOversells() throws Exception {
+        Schedule schedule = newSchedule(10);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (schedule.bookSlot()) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(10, succeeded.get());
+        assertEquals(10, schedule.getBookedSlots());
+        assertEquals(Schedule.STATUS_FULL, schedule.getStatus());
+        assertFalse(schedule.bookSlot());
+    }
+
+    // ԤԼȡϣԤԼʼ[0, ԤԼ]ڣÿֽغ״̬һ
+    @Test
+    public void concurrentBookAndCancelKeepsCountAndStatusConsistent() throws Exception {
+        Schedule schedule = newSchedule(4);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> observer = pool.submit(() -> {
+                while (running.get()) {
+                    int booked = schedule.getBookedSlots();
+                    if (booked < 0 || booked > schedule.getAvailableSlots()) {
+                        throw new AssertionError("ԤԼԽ磺" + booked);
+                    }
+                }
+                return null;
+            });
+            for (int round = 0; round < 50; round++) {
+                AtomicInteger net = new AtomicInteger();
+                int before = schedule.getBookedSlots();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < 2000; i++) {
+                            if (random.nextBoolean()) {
+                                if (schedule.bookSlot()) {
+                                    net.incrementAndGet();
+                                }
+                            } else if (schedule.cancelSlot()) {
+                                net.decrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+                assertEquals(before + net.get(), schedule.getBookedSlots());
+                assertConsistent(schedule);
+            }
+            running.set(false);
+            observer.get(30, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+    }
+}
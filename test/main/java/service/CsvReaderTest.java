@@ -0,0 +1,83 @@
+package main.java.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ʽCSVȡšת塢ֶڻСBOMУԼԽ߽ļ¼
+ */
+public class CsvReaderTest {
+
+    @TempDir
+    Path dir;
+
+    // ڵĶšк˫Űֶݶȡ¼кָ¼ĵһ
+    @Test
+    public void quotedFields() throws Exception {
+        Path file = write("\uFEFF,ע\r\n,\"ó\"\"ڿ\"\",\"\r\n\r\n,\"һ\nڶ\",\n",
+                StandardCharsets.UTF_8);
+        List<String> fields = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(file, StandardCharsets.UTF_8)) {
+            assertTrue(reader.readRecord(fields));
+            assertEquals(List.of("", "ע"), fields);
+            assertTrue(reader.readRecord(fields));
+            assertEquals(List.of("", "ó\"ڿ\","), fields);
+            assertEquals(2, reader.getRecordLine());
+            assertTrue(reader.readRecord(fields));
+            assertEquals(List.of("", "һ\nڶ", ""), fields);
+            assertEquals(4, reader.getRecordLine());
+            assertFalse(reader.readRecord(fields));
+        }
+    }
+
+    // ԶСڼ¼ʱGBK˫ַֽԽ߽Ҳȷ
+    @Test
+    public void smallBufferAcrossBoundaries() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            content.append("ҽ").append(i).append(",\"ڿ,\"\n");
+        }
+        Path file = write(content.toString(), gbk);
+        List<String> fields = new ArrayList<>();
+        int count = 0;
+        try (CsvReader reader = new CsvReader(file, gbk, 7)) {
+            while (reader.readRecord(fields)) {
+                assertEquals(List.of("ҽ" + count, "ڿ,"), fields);
+                count++;
+            }
+        }
+        assertEquals(50, count);
+    }
+
+    // δպʱ¼ʼ
+    @Test
+    public void unclosedQuoteRejected() throws Exception {
+        Path file = write("a,b\nc,\"δպ\n", StandardCharsets.UTF_8);
+        List<String> fields = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(file, StandardCharsets.UTF_8)) {
+            assertTrue(reader.readRecord(fields));
+            IOException e = assertThrows(IOException.class, () -> reader.readRecord(fields));
+            assertTrue(e.getMessage().startsWith("2"), e.getMessage());
+        }
+    }
+
+    private Path write(String content, Charset charset) throws IOException {
+        Path file = dir.resolve("data.csv");
+        Files.write(file, content.getBytes(charset));
+        return file;
+    }
+}
@@ -0,0 +1,77 @@
+package main.java.service;
+
+import main.java.entity.Department;
+import main.java.entity.Doctor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ƿգдһ£пգһֽʱCRCУʧ
+ */
+public class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    // дٶأšҽ־λöֲ䣻ٴд븲Ǿɿ
+    @Test
+    public void roundTripAndReplace() throws Exception {
+        Path file = dir.resolve("departments.snapshot");
+        long size = SnapshotFile.write(file, List.of(department("ڿ", "00000001")), 7);
+        assertEquals(size, Files.size(file));
+
+        SnapshotFile.write(file, List.of(department("ڿ", "00000001"), department("", "00000002")), 9);
+        SnapshotFile.Content content = SnapshotFile.read(file);
+        assertEquals(9, content.getJournalSequence());
+        assertEquals(2, content.getDepartments().size());
+        Department first = content.getDepartments().get(0);
+        assertEquals("ڿ", first.getDeptName());
+        assertEquals("00000001", first.getDoctorList().get(0).getDoctorId());
+        assertEquals("ڿ", first.getDoctorList().get(0).getSpecialty());
+    }
+
+    // תһֽڣͷݻCRCᱻУ鷢
+    @Test
+    public void corruptedByteFailsChecksum() throws Exception {
+        Path file = dir.resolve("departments.snapshot");
+        SnapshotFile.write(file, List.of(department("ڿ", "00000001")), 1);
+        byte[] original = Files.readAllBytes(file);
+        for (int i = 0; i < original.length; i++) {
+            byte[] corrupted = original.clone();
+            corrupted[i] ^= 0x01;
+            Files.write(file, corrupted);
+            IOException e = assertThrows(IOException.class, () -> SnapshotFile.read(file), "" + i + "ֽ");
+            assertTrue(e.getMessage().contains("CRC32"), e.getMessage());
+        }
+    }
+
+    // ضϵļܶȡ
+    @Test
+    public void truncatedFileRejected() throws Exception {
+        Path file = dir.resolve("departments.snapshot");
+        SnapshotFile.write(file, List.of(department("ڿ", "00000001")), 1);
+        byte[] original = Files.readAllBytes(file);
+        byte[] truncated = new byte[original.length - 5];
+        System.arraycopy(original, 0, truncated, 0, truncated.length);
+        Files.write(file, truncated);
+        assertThrows(IOException.class, () -> SnapshotFile.read(file));
+    }
+
+    private static Department department(String name, String doctorId) {
+        Department department = new Department();
+        department.setDeptName(name);
+        Doctor doctor = new Doctor("ҽ", "password", name, "ڿ");
+        doctor.setDoctorId(doctorId);
+        department.addDoctor(doctor);
+        return department;
+    }
+}
@@ -0,0 +1,83 @@
+package main.java.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 򲹶УȽȳתȡ볬ʱĺ򲹲תתعŻض
+ */
+public class WaitlistTest {
+
+    // ˳תȡĺ򲹱Ƴ
+    @Test
+    public void claimsInOrderSkippingCancelled() {
+        Waitlist waitlist = new Waitlist();
+        Waitlist.Waiter first = waitlist.add("S1", "P1", 60_000);
+        Waitlist.Waiter second = waitlist.add("S1", "P2", 60_000);
+        Waitlist.Waiter third = waitlist.add("S1", "P3", 60_000);
+        second.getFuture().cancel(false);
+        assertEquals(2, waitlist.size("S1"));
+
+        assertSame(first, waitlist.claimNext("S1"));
+        assertSame(third, waitlist.claimNext("S1"));
+        assertNull(waitlist.claimNext("S1"));
+        assertEquals(0, waitlist.size("S1"));
+    }
+
+    // תع򲹻صףһתȻȸ
+    @Test
+    public void unclaimRestoresHead() {
+        Waitlist waitlist = new Waitlist();
+        Waitlist.Waiter first = waitlist.add("S1", "P1", 60_000);
+        Waitlist.Waiter second = waitlist.add("S1", "P2", 60_000);
+
+        Waitlist.Waiter claimed = waitlist.claimNext("S1");
+        waitlist.unclaim("S1", claimed);
+        assertSame(first, waitlist.claimNext("S1"));
+        assertSame(second, waitlist.claimNext("S1"));
+    }
+
+    // ʱĺTimeoutException
+    @Test
+    public void waiterExpires() throws Exception {
+        Waitlist waitlist = new Waitlist();
+        Waitlist.Waiter waiter = waitlist.add("S1", "P1", 20);
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> waiter.getFuture().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertNull(waitlist.claimNext("S1"));
+    }
+
+    // ռڼ䵽ڵĺڻعŻʱֱӽڶԶȴ
+    @Test
+    public void unclaimAfterDeadlineExpires() throws Exception {
+        Waitlist waitlist = new Waitlist();
+        Waitlist.Waiter waiter = waitlist.add("S1", "P1", 20);
+        assertSame(waiter, waitlist.claimNext("S1"));
+        Thread.sleep(100);
+
+        waitlist.unclaim("S1", waiter);
+        assertTrue(waiter.getFuture().isCompletedExceptionally());
+        assertNull(waitlist.claimNext("S1"));
+    }
+
+    // رʱȫȴеĺ
+    @Test
+    public void failAllCompletesWaiters() {
+        Waitlist waitlist = new Waitlist();
+        Waitlist.Waiter waiter = waitlist.add("S1", "P1", 60_000);
+        waitlist.failAll(new IllegalStateException("ѹر"));
+        assertTrue(waiter.getFuture().isCompletedExceptionally());
+        assertEquals(0, waitlist.size("S1"));
+    }
+}
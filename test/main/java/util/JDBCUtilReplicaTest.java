@@ -0,0 +1,115 @@
+package main.java.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * д·ɣãtest/main/resources/db.properties⡢ӿƵH2ڴ⣬
+ * ԵnodeֻһУдſ֣ѯĸ־˵ĸ
+ */
+public class JDBCUtilReplicaTest {
+
+    @BeforeAll
+    public static void createNodeTables() throws Exception {
+        assertNotNull(JDBCUtil.getReplicaDataSource(), "Ӧôӿ");
+        try (Connection conn = JDBCUtil.getNewConnection()) {
+            createNodeTable(conn, "primary");
+        }
+        try (Connection conn = JDBCUtil.getReplicaDataSource().getConnection()) {
+            createNodeTable(conn, "replica");
+        }
+    }
+
+    @BeforeEach
+    public void enableWindow() {
+        JDBCUtil.setReadYourWritesMillis(60_000);
+    }
+
+    @AfterEach
+    public void restoreWindow() {
+        JDBCUtil.setReadYourWritesMillis(3000);
+    }
+
+    // ûдݵ̣߳ߴӿ
+    @Test
+    public void readWithoutWriteGoesToReplica() throws Exception {
+        assertEquals("replica", onNewThread(() -> readNode(JDBCUtil.getReadConnection())));
+    }
+
+    // ߳дʱ䴰ڣص⣬ܶԼд
+    @Test
+    public void readAfterWriteOnSameThreadGoesToPrimary() throws Exception {
+        assertEquals("primary", onNewThread(() -> {
+            JDBCUtil.markWrite();
+            return readNode(JDBCUtil.getReadConnection());
+        }));
+    }
+
+    // ʱ䴰ڹ󣬶ߴӿ
+    @Test
+    public void readAfterWindowGoesBackToReplica() throws Exception {
+        assertEquals("replica", onNewThread(() -> {
+            JDBCUtil.markWrite();
+            JDBCUtil.setReadYourWritesMillis(0);
+            return readNode(JDBCUtil.getReadConnection());
+        }));
+    }
+
+    // Ựǵд߳ͬһỰĶЧӰỰ
+    @Test
+    public void sessionWriteIsVisibleFromOtherThreads() throws Exception {
+        onNewThread(() -> {
+            JDBCUtil.markWrite("patient-1");
+            return null;
+        });
+        assertEquals("primary", onNewThread(() -> readNode(JDBCUtil.getReadConnection("patient-1"))));
+        assertEquals("replica", onNewThread(() -> readNode(JDBCUtil.getReadConnection("patient-2"))));
+    }
+
+    // ԪڵĶʹùԪ
+    @Test
+    public void readInsideUnitOfWorkGoesToPrimary() throws Exception {
+        assertEquals("primary", onNewThread(() -> UnitOfWork.execute(() -> readNode(JDBCUtil.getReadConnection()))));
+    }
+
+    private static void createNodeTable(Connection conn, String name) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+            stmt.executeUpdate("DELETE FROM node");
+            stmt.executeUpdate("INSERT INTO node VALUES ('" + name + "')");
+        }
+    }
+
+    // ȡڿֲ黹
+    private static String readNode(Connection conn) throws Exception {
+        try (Connection c = conn; Statement stmt = c.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT name FROM node")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    // ִ߳Удı̼߳ģ̲߳µıӰ
+    private static <T> T onNewThread(Callable<T> action) throws Exception {
+        FutureTask<T> task = new FutureTask<>(action);
+        Thread thread = new Thread(task);
+        thread.start();
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
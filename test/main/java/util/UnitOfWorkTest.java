@@ -0,0 +1,138 @@
+package main.java.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ԫύ/عı߽磬Լύصִʱ
+ */
+public class UnitOfWorkTest {
+
+    @BeforeAll
+    public static void createTable() throws Exception {
+        try (Connection conn = JDBCUtil.getNewConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS uow_item (id INT PRIMARY KEY)");
+        }
+    }
+
+    @BeforeEach
+    public void clearTable() throws Exception {
+        try (Connection conn = JDBCUtil.getNewConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM uow_item");
+        }
+    }
+
+    // صύִ֮Уʱܶύ
+    @Test
+    public void callbacksRunAfterCommit() throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        UnitOfWork.execute(() -> {
+            insert(1);
+            UnitOfWork.afterCommit(() -> seen.add(countCommitted()));
+            assertTrue(seen.isEmpty(), "ύǰӦִлص");
+            return null;
+        });
+        assertEquals(List.of(1), seen);
+    }
+
+    // ԪعʱִлصҲд
+    @Test
+    public void callbacksSkippedOnRollback() throws Exception {
+        List<String> seen = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.execute(() -> {
+            insert(1);
+            UnitOfWork.afterCommit(() -> seen.add("called"));
+            throw new IllegalStateException("ҵʧ");
+        }));
+        assertTrue(seen.isEmpty());
+        assertEquals(0, countCommitted());
+    }
+
+    // ĳص׳쳣ύexecuteأصճִ
+    @Test
+    public void failingCallbackDoesNotStopOthers() throws Exception {
+        List<String> seen = new ArrayList<>();
+        String result = UnitOfWork.execute(() -> {
+            insert(1);
+            UnitOfWork.afterCommit(() -> {
+                throw new IllegalStateException("صʧ");
+            });
+            UnitOfWork.afterCommit(() -> seen.add("second"));
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(List.of("second"), seen);
+        assertEquals(1, countCommitted());
+    }
+
+    // ڹԪڵǼǵĻصִУ׳쳣ͬ⴫
+    @Test
+    public void callbackOutsideUnitRunsImmediately() {
+        List<String> seen = new ArrayList<>();
+        UnitOfWork.afterCommit(() -> seen.add("now"));
+        assertEquals(List.of("now"), seen);
+        UnitOfWork.afterCommit(() -> {
+            throw new IllegalStateException("صʧ");
+        });
+    }
+
+    // ڹϵrollback()ѹԪΪع㲻ύ
+    @Test
+    public void rollbackOnSharedConnectionPreventsCommit() throws Exception {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.execute(() -> {
+            insert(1);
+            try (Connection conn = JDBCUtil.getConnection()) {
+                conn.rollback();
+            }
+            insert(2);
+            return null;
+        }));
+        assertEquals(0, countCommitted());
+    }
+
+    // Ƕ׵ü㹤ԪڲĻصȵύִ
+    @Test
+    public void nestedUnitJoinsOuter() throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        UnitOfWork.execute(() -> {
+            UnitOfWork.execute(() -> {
+                insert(1);
+                UnitOfWork.afterCommit(() -> seen.add(countCommitted()));
+                return null;
+            });
+            assertTrue(seen.isEmpty(), "ڲʱδύ");
+            insert(2);
+            return null;
+        });
+        assertEquals(List.of(2), seen);
+    }
+
+    private static void insert(int id) throws SQLException {
+        try (Connection conn = JDBCUtil.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO uow_item VALUES (" + id + ")");
+        }
+    }
+
+    // õͳύ
+    private static int countCommitted() {
+        try (Connection conn = JDBCUtil.getNewConnection(); Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM uow_item")) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
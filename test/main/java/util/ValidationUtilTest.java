@@ -0,0 +1,41 @@
+package main.java.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ֤У淶ʽ
+ */
+public class ValidationUtilTest {
+
+    // УȷĺͨĩλXСд
+    @Test
+    public void validCheckDigitAccepted() {
+        assertTrue(ValidationUtil.isIdentityId("110105199003070017"));
+        assertTrue(ValidationUtil.isIdentityId("11010519491231002X"));
+        assertTrue(ValidationUtil.isIdentityId("11010519491231002x"));
+    }
+
+    // У󡢳ȲԻ򺬷ַĺ벻ͨ
+    @Test
+    public void invalidIdentityIdRejected() {
+        assertFalse(ValidationUtil.isIdentityId("110105199003070018"));
+        assertFalse(ValidationUtil.isIdentityId("110105199003070010"));
+        assertFalse(ValidationUtil.isIdentityId("11010519900307001"));
+        assertFalse(ValidationUtil.isIdentityId("11010519900307A017"));
+        assertFalse(ValidationUtil.isIdentityId(null));
+    }
+
+    // 淶ʽֻĩλСдxתΪд
+    @Test
+    public void normalizeUppercasesTrailingX() {
+        assertEquals("11010519491231002X", ValidationUtil.normalizeIdentityId("11010519491231002x"));
+        assertEquals("11010519491231002X", ValidationUtil.normalizeIdentityId("11010519491231002X"));
+        assertEquals("110105199003070017", ValidationUtil.normalizeIdentityId("110105199003070017"));
+        assertNull(ValidationUtil.normalizeIdentityId(null));
+    }
+}